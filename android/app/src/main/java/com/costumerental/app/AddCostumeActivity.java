@@ -12,6 +12,7 @@ import com.costumerental.app.api.ApiClient;
 import com.costumerental.app.api.ApiService;
 import com.costumerental.app.models.ApiResponse;
 import com.costumerental.app.models.Costume;
+import com.costumerental.app.repository.OutboxReplayer;
 import com.costumerental.app.utils.SharedPrefManager;
 
 import java.util.HashMap;
@@ -24,7 +25,7 @@ import retrofit2.Response;
 // Add Costume Activity (Admin only)
 public class AddCostumeActivity extends AppCompatActivity {
     
-    private EditText editTextName, editTextSize, editTextPrice;
+    private EditText editTextName, editTextSize, editTextPrice, editTextImage;
     private Button buttonSave;
     private ApiService apiService;
     
@@ -37,6 +38,7 @@ public class AddCostumeActivity extends AppCompatActivity {
         editTextName = findViewById(R.id.editTextName);
         editTextSize = findViewById(R.id.editTextSize);
         editTextPrice = findViewById(R.id.editTextPrice);
+        editTextImage = findViewById(R.id.editTextImage);
         buttonSave = findViewById(R.id.buttonSave);
         
         apiService = ApiClient.getApiService();
@@ -55,6 +57,7 @@ public class AddCostumeActivity extends AppCompatActivity {
         String name = editTextName.getText().toString().trim();
         String size = editTextSize.getText().toString().trim();
         String priceStr = editTextPrice.getText().toString().trim();
+        String image = editTextImage.getText().toString().trim();
         
         if (name.isEmpty() || size.isEmpty() || priceStr.isEmpty()) {
             Toast.makeText(this, "Please fill all fields", Toast.LENGTH_SHORT).show();
@@ -64,15 +67,18 @@ public class AddCostumeActivity extends AppCompatActivity {
         try {
             double price = Double.parseDouble(priceStr);
             
-            Map<String, Object> costumeData = new HashMap<>();
+            final Map<String, Object> costumeData = new HashMap<>();
             costumeData.put("name", name);
             costumeData.put("size", size);
             costumeData.put("price", price);
-            costumeData.put("image", "default.jpg");
+            costumeData.put("image", image.isEmpty() ? "default.jpg" : image);
             
-            String token = "Bearer " + SharedPrefManager.getInstance(this).getToken();
+            final String token = "Bearer " + SharedPrefManager.getInstance(this).getToken();
             
-            Call<ApiResponse<Costume>> call = apiService.addCostume(token, costumeData);
+            // Same key if this request has to be replayed from the outbox
+            final String idempotencyKey = OutboxReplayer.newIdempotencyKey();
+            
+            Call<ApiResponse<Costume>> call = apiService.addCostume(token, idempotencyKey, costumeData);
             call.enqueue(new Callback<ApiResponse<Costume>>() {
                 @Override
                 public void onResponse(Call<ApiResponse<Costume>> call, Response<ApiResponse<Costume>> response) {
@@ -91,6 +97,14 @@ public class AddCostumeActivity extends AppCompatActivity {
                 
                 @Override
                 public void onFailure(Call<ApiResponse<Costume>> call, Throwable t) {
+                    // No connection: keep the costume in the outbox and send it when the network is back
+                    if (ApiClient.isConnectivityFailure(t) && !call.isCanceled()) {
+                        OutboxReplayer.getInstance(AddCostumeActivity.this).enqueue(OutboxReplayer.OP_ADD_COSTUME,
+                                0, costumeData, idempotencyKey, token, "New costume " + name);
+                        Toast.makeText(AddCostumeActivity.this, "You are offline. The costume will be added when the connection is back.", Toast.LENGTH_LONG).show();
+                        finish();
+                        return;
+                    }
                     Toast.makeText(AddCostumeActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
                 }
             });
@@ -1,39 +1,55 @@
 package com.costumerental.app;
 
+import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.view.View;
 import android.widget.Button;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
 import com.costumerental.app.api.ApiClient;
-import com.costumerental.app.api.ApiService;
-import com.costumerental.app.models.ApiResponse;
+import com.costumerental.app.api.EventStreamClient;
+import com.costumerental.app.api.JsonStreamDecoder;
+import com.costumerental.app.api.NetworkMetrics;
 import com.costumerental.app.models.Reservation;
+import com.costumerental.app.repository.OutboxReplayer;
+import com.costumerental.app.repository.ReservationRepository;
+import com.costumerental.app.repository.ReservationStore;
 import com.costumerental.app.utils.NotificationHelper;
 import com.costumerental.app.utils.SharedPrefManager;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 // Admin Dashboard Activity
 public class AdminDashboardActivity extends AppCompatActivity {
     
-    private Button buttonViewCostumes, buttonAddCostume, buttonViewReservations, buttonLogout;
-    private ApiService apiService;
+    private Button buttonViewCostumes, buttonAddCostume, buttonViewReservations, buttonNetworkStats, buttonLogout;
+    private ReservationRepository reservationRepository;
     private NotificationHelper notificationHelper;
+    private EventStreamClient eventStream;
     private static final int NOTIFICATION_PERMISSION_REQUEST_CODE = 200;
     
+    // Reservations decoded at a time while scanning for new requests
+    private static final int SCAN_BATCH_SIZE = 100;
+    private static final long CHECK_FRESHNESS_MS = 30 * 1000;
+    private boolean checkingReservations = false;
+    private long lastCheckAt = -CHECK_FRESHNESS_MS;
+    
+    // Appended to on every dump, pull with adb to compare builds
+    private static final String METRICS_FILE_NAME = "network_metrics.txt";
+    
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -43,9 +59,10 @@ public class AdminDashboardActivity extends AppCompatActivity {
         buttonViewCostumes = findViewById(R.id.buttonViewCostumes);
         buttonAddCostume = findViewById(R.id.buttonAddCostume);
         buttonViewReservations = findViewById(R.id.buttonViewReservations);
+        buttonNetworkStats = findViewById(R.id.buttonNetworkStats);
         buttonLogout = findViewById(R.id.buttonLogout);
         
-        apiService = ApiClient.getApiService();
+        reservationRepository = ReservationRepository.getInstance();
         notificationHelper = new NotificationHelper(this);
         
         // Request notification permission for Android 13+
@@ -58,7 +75,7 @@ public class AdminDashboardActivity extends AppCompatActivity {
             }
         }
         
-        // Check for new reservations when activity starts
+        // Catch up once on start, new requests after that arrive through the event stream
         checkNewReservations();
         
         // View costumes button
@@ -89,11 +106,24 @@ public class AdminDashboardActivity extends AppCompatActivity {
             }
         });
         
+        // Network stats button
+        buttonNetworkStats.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                showNetworkStats();
+            }
+        });
+        
         // Logout button
         buttonLogout.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                stopEventStream();
+                ReservationStore.getInstance(AdminDashboardActivity.this).clear();
+                OutboxReplayer.getInstance(AdminDashboardActivity.this).clear();
                 SharedPrefManager.getInstance(AdminDashboardActivity.this).logout();
+                ApiClient.clearCache();
+                reservationRepository.clear();
                 Intent intent = new Intent(AdminDashboardActivity.this, LoginActivity.class);
                 startActivity(intent);
                 finish();
@@ -110,44 +140,51 @@ public class AdminDashboardActivity extends AppCompatActivity {
         
         token = "Bearer " + token;
         
-        Call<ApiResponse<List<Reservation>>> call = apiService.getAllReservations(token);
-        call.enqueue(new Callback<ApiResponse<List<Reservation>>>() {
+        // onCreate and the permission result both land here, one scan per freshness window is enough
+        if (checkingReservations
+                || SystemClock.elapsedRealtime() - lastCheckAt < CHECK_FRESHNESS_MS) {
+            return;
+        }
+        checkingReservations = true;
+        
+        final Set<Integer> seenReservationIds = SharedPrefManager.getInstance(this).getSeenReservationIds();
+        final List<Reservation> newPending = new ArrayList<>();
+        
+        // Stream the whole list, keeping only new pending reservations from each batch
+        reservationRepository.scanAllReservations(token, SCAN_BATCH_SIZE, new JsonStreamDecoder.BatchConsumer<Reservation>() {
+            @Override
+            public void accept(List<Reservation> batch) {
+                for (Reservation reservation : batch) {
+                    String status = reservation.getStatus() != null ? reservation.getStatus() : "pending";
+                    
+                    // Only notify for pending reservations not seen before
+                    if (status.equals("pending") && !seenReservationIds.contains(reservation.getId())) {
+                        synchronized (newPending) {
+                            newPending.add(reservation);
+                        }
+                    }
+                }
+            }
+        }, new ReservationRepository.ScanCallback() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Reservation>>> call, Response<ApiResponse<List<Reservation>>> response) {
+            public void onComplete(int count) {
+                checkingReservations = false;
+                lastCheckAt = SystemClock.elapsedRealtime();
                 try {
-                    if (response.isSuccessful() && response.body() != null) {
-                        ApiResponse<List<Reservation>> apiResponse = response.body();
-                        if (apiResponse.getData() != null) {
-                            List<Reservation> reservations = apiResponse.getData();
-                            SharedPrefManager prefManager = SharedPrefManager.getInstance(AdminDashboardActivity.this);
-                            Set<Integer> seenReservationIds = prefManager.getSeenReservationIds();
-                            
-                            int newPendingCount = 0;
-                            
-                            // Check for new pending reservations
-                            for (Reservation reservation : reservations) {
-                                String status = reservation.getStatus() != null ? reservation.getStatus() : "pending";
-                                
-                                // Only notify for pending reservations
-                                if (status.equals("pending")) {
-                                    int reservationId = reservation.getId();
-                                    
-                                    // Check if this is a new reservation (not seen before)
-                                    if (!seenReservationIds.contains(reservationId)) {
-                                        newPendingCount++;
-                                        // Mark as seen
-                                        prefManager.markReservationAsSeen(reservationId);
-                                        
-                                        // Show notification for individual reservation
-                                        notificationHelper.showNewReservationNotification(reservation);
-                                    }
-                                }
-                            }
+                    SharedPrefManager prefManager = SharedPrefManager.getInstance(AdminDashboardActivity.this);
+                    
+                    synchronized (newPending) {
+                        for (Reservation reservation : newPending) {
+                            // Mark as seen
+                            prefManager.markReservationAsSeen(reservation.getId());
                             
-                            // If there are multiple new reservations, show a summary notification
-                            if (newPendingCount > 1) {
-                                notificationHelper.showMultipleReservationsNotification(newPendingCount);
-                            }
+                            // Show notification for individual reservation
+                            notificationHelper.showNewReservationNotification(reservation);
+                        }
+                        
+                        // If there are multiple new reservations, show a summary notification
+                        if (newPending.size() > 1) {
+                            notificationHelper.showMultipleReservationsNotification(newPending.size());
                         }
                     }
                 } catch (Exception e) {
@@ -156,13 +193,50 @@ public class AdminDashboardActivity extends AppCompatActivity {
             }
             
             @Override
-            public void onFailure(Call<ApiResponse<List<Reservation>>> call, Throwable t) {
+            public void onError(String message) {
+                checkingReservations = false;
                 // Silently fail - notifications are not critical
-                android.util.Log.d("AdminDashboard", "Failed to check new reservations: " + t.getMessage());
+                android.util.Log.d("AdminDashboard", "Failed to check new reservations: " + message);
             }
         });
     }
     
+    // Show per-endpoint timings recorded since the app started, with an option to save them
+    private void showNetworkStats() {
+        new AlertDialog.Builder(this)
+                .setTitle("Network Stats")
+                .setMessage(NetworkMetrics.getInstance().getReport())
+                .setPositiveButton("Close", null)
+                .setNeutralButton("Save to file", new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        dumpNetworkStats();
+                    }
+                })
+                .setNegativeButton("Reset", new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        NetworkMetrics.getInstance().reset();
+                    }
+                })
+                .show();
+    }
+    
+    // Append the report to the app's external files dir (falls back to internal storage)
+    private void dumpNetworkStats() {
+        File dir = getExternalFilesDir(null);
+        if (dir == null) {
+            dir = getFilesDir();
+        }
+        File file = new File(dir, METRICS_FILE_NAME);
+        try {
+            NetworkMetrics.getInstance().dumpToFile(file);
+            Toast.makeText(this, "Saved to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Toast.makeText(this, "Failed to save: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+    
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
@@ -175,11 +249,68 @@ public class AdminDashboardActivity extends AppCompatActivity {
     }
     
     @Override
-    protected void onResume() {
-        super.onResume();
-        // Check for new reservations when activity resumes
-        checkNewReservations();
+    protected void onStart() {
+        super.onStart();
+        startEventStream();
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stopEventStream();
+    }
+    
+    // Listen for new reservation requests pushed by the server while the dashboard is visible
+    private void startEventStream() {
+        SharedPrefManager prefManager = SharedPrefManager.getInstance(this);
+        String token = prefManager.getToken();
+        if (token == null || token.isEmpty() || eventStream != null) {
+            return;
+        }
+        
+        eventStream = ApiClient.createEventStream("Bearer " + token, prefManager.getLastEventId(), new EventStreamClient.Listener() {
+            @Override
+            public void onEvent(String id, String type, String data) {
+                if (!EventStreamClient.EVENT_RESERVATION_CREATED.equals(type)) {
+                    return;
+                }
+                final Reservation reservation = ApiClient.getGson().fromJson(data, Reservation.class);
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        onReservationCreated(reservation);
+                    }
+                });
+            }
+        });
+        eventStream.start();
+    }
+    
+    private void stopEventStream() {
+        if (eventStream == null) {
+            return;
+        }
+        eventStream.stop();
+        SharedPrefManager prefManager = SharedPrefManager.getInstance(this);
+        if (prefManager.isLoggedIn() && eventStream.getLastEventId() != null) {
+            prefManager.saveLastEventId(eventStream.getLastEventId());
+        }
+        eventStream = null;
     }
     
+    // Notify about a reservation request pushed by the server (once per reservation)
+    private void onReservationCreated(Reservation reservation) {
+        if (reservation == null) {
+            return;
+        }
+        reservationRepository.invalidate();
+        
+        SharedPrefManager prefManager = SharedPrefManager.getInstance(this);
+        if (prefManager.getSeenReservationIds().contains(reservation.getId())) {
+            return;
+        }
+        prefManager.markReservationAsSeen(reservation.getId());
+        notificationHelper.showNewReservationNotification(reservation);
+    }
 }
 
@@ -1,20 +1,34 @@
 package com.costumerental.app;
 
 import android.os.Bundle;
+import android.view.View;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.OnBackPressedCallback;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.costumerental.app.api.ApiClient;
 import com.costumerental.app.api.ApiService;
+import com.costumerental.app.api.JsonStreamDecoder;
 import com.costumerental.app.models.ApiResponse;
+import com.costumerental.app.models.BatchResult;
 import com.costumerental.app.models.Reservation;
+import com.costumerental.app.repository.ReservationRepository;
+import com.costumerental.app.repository.ReservationStore;
 import com.costumerental.app.utils.SharedPrefManager;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -23,10 +37,17 @@ import retrofit2.Response;
 // Admin Reservations Activity - Browse and manage reservations
 public class AdminReservationsActivity extends AppCompatActivity {
     
+    private static final int SCAN_BATCH_SIZE = 100;
+    
     private RecyclerView recyclerView;
     private ReservationAdapter adapter;
-    private List<Reservation> reservationList;
     private ApiService apiService;
+    private LinearLayout layoutSelectionActions;
+    private TextView textViewSelectionCount;
+    private Button buttonApproveSelected, buttonRejectSelected, buttonCancelSelection;
+    private OnBackPressedCallback clearSelectionOnBack;
+    private ReservationStore reservationStore;
+    private boolean scanning;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -35,44 +56,101 @@ public class AdminReservationsActivity extends AppCompatActivity {
         
         // Initialize
         recyclerView = findViewById(R.id.recyclerView);
-        reservationList = new ArrayList<>();
-        adapter = new ReservationAdapter(reservationList, this);
+        adapter = new ReservationAdapter(this);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
         recyclerView.setAdapter(adapter);
         
         apiService = ApiClient.getApiService();
         
-        // Load reservations
+        // Batch actions for the selected reservations
+        layoutSelectionActions = findViewById(R.id.layoutSelectionActions);
+        textViewSelectionCount = findViewById(R.id.textViewSelectionCount);
+        buttonApproveSelected = findViewById(R.id.buttonApproveSelected);
+        buttonRejectSelected = findViewById(R.id.buttonRejectSelected);
+        buttonCancelSelection = findViewById(R.id.buttonCancelSelection);
+        
+        buttonApproveSelected.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                batchUpdate("approve");
+            }
+        });
+        
+        buttonRejectSelected.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                batchUpdate("reject");
+            }
+        });
+        
+        buttonCancelSelection.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                adapter.clearSelection();
+            }
+        });
+        
+        // While reservations are selected, back clears the selection instead of leaving the screen
+        clearSelectionOnBack = new OnBackPressedCallback(false) {
+            @Override
+            public void handleOnBackPressed() {
+                adapter.clearSelection();
+            }
+        };
+        getOnBackPressedDispatcher().addCallback(clearSelectionOnBack);
+        
+        reservationStore = ReservationStore.getInstance(this);
+        
+        // Show the stored list right away, then refresh it from the server
+        showStoredReservations();
         loadReservations();
     }
     
-    // Load all reservations
+    // Stream every reservation from the server into the store a batch at a time, then show the store.
+    // Only one batch is decoded at once, so a long reservation history never sits in memory as JSON
+    // and as one list of Reservation objects with their costumes and users.
     private void loadReservations() {
+        if (scanning) {
+            return;
+        }
+        scanning = true;
         String token = "Bearer " + SharedPrefManager.getInstance(this).getToken();
+        final Set<Integer> serverIds = new HashSet<>();
         
-        Call<ApiResponse<List<Reservation>>> call = apiService.getAllReservations(token);
-        call.enqueue(new Callback<ApiResponse<List<Reservation>>>() {
+        ReservationRepository.getInstance().scanAllReservations(token, SCAN_BATCH_SIZE, new JsonStreamDecoder.BatchConsumer<Reservation>() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Reservation>>> call, Response<ApiResponse<List<Reservation>>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    ApiResponse<List<Reservation>> apiResponse = response.body();
-                    if (apiResponse.getData() != null) {
-                        reservationList.clear();
-                        reservationList.addAll(apiResponse.getData());
-                        adapter.notifyDataSetChanged();
-                        
-                        if (reservationList.isEmpty()) {
-                            Toast.makeText(AdminReservationsActivity.this, "No reservations found", Toast.LENGTH_SHORT).show();
-                        }
-                    }
-                } else {
-                    Toast.makeText(AdminReservationsActivity.this, "Failed to load reservations", Toast.LENGTH_SHORT).show();
+            public void accept(List<Reservation> batch) {
+                // Scan thread; the disk executor writes the batches in the order they arrive
+                for (Reservation reservation : batch) {
+                    serverIds.add(reservation.getId());
+                }
+                reservationStore.save(batch);
+            }
+        }, new ReservationRepository.ScanCallback() {
+            @Override
+            public void onComplete(int count) {
+                scanning = false;
+                reservationStore.retainOnly(serverIds);
+                showStoredReservations();
+                if (count == 0) {
+                    Toast.makeText(AdminReservationsActivity.this, "No reservations found", Toast.LENGTH_SHORT).show();
                 }
             }
             
             @Override
-            public void onFailure(Call<ApiResponse<List<Reservation>>> call, Throwable t) {
-                Toast.makeText(AdminReservationsActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String message) {
+                scanning = false;
+                Toast.makeText(AdminReservationsActivity.this, message, Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+    
+    // Render the stored list; queued behind any pending writes, so it includes the batches saved so far
+    private void showStoredReservations() {
+        reservationStore.loadAll(new ReservationStore.Callback() {
+            @Override
+            public void onLoaded(List<Reservation> reservations) {
+                adapter.submitList(reservations, null);
             }
         });
     }
@@ -89,30 +167,15 @@ public class AdminReservationsActivity extends AppCompatActivity {
                     ApiResponse<Reservation> apiResponse = response.body();
                     if (apiResponse.isSuccess()) {
                         Toast.makeText(AdminReservationsActivity.this, "Reservation approved", Toast.LENGTH_SHORT).show();
-                        loadReservations(); // Refresh list
+                        ReservationRepository.getInstance().invalidate();
+                        applyUpdated(apiResponse.getData());
                     } else {
                         Toast.makeText(AdminReservationsActivity.this, apiResponse.getMessage(), Toast.LENGTH_SHORT).show();
                     }
                 } else {
-                    // Try to parse error message
-                    try {
-                        if (response.errorBody() != null) {
-                            String errorBody = response.errorBody().string();
-                            if (errorBody.contains("message")) {
-                                // Simple JSON parsing for error message
-                                int start = errorBody.indexOf("\"message\":\"") + 11;
-                                int end = errorBody.indexOf("\"", start);
-                                if (start > 10 && end > start) {
-                                    String errorMsg = errorBody.substring(start, end);
-                                    Toast.makeText(AdminReservationsActivity.this, errorMsg, Toast.LENGTH_LONG).show();
-                                    return;
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Ignore parsing errors
-                    }
-                    Toast.makeText(AdminReservationsActivity.this, "Failed to approve reservation", Toast.LENGTH_SHORT).show();
+                    // 409 when another approved reservation already holds the costume for these dates
+                    String errorMessage = ApiClient.parseError(response).getDisplayMessage("Failed to approve reservation");
+                    Toast.makeText(AdminReservationsActivity.this, errorMessage, Toast.LENGTH_LONG).show();
                 }
             }
             
@@ -135,12 +198,14 @@ public class AdminReservationsActivity extends AppCompatActivity {
                     ApiResponse<Reservation> apiResponse = response.body();
                     if (apiResponse.isSuccess()) {
                         Toast.makeText(AdminReservationsActivity.this, "Reservation rejected", Toast.LENGTH_SHORT).show();
-                        loadReservations(); // Refresh list
+                        ReservationRepository.getInstance().invalidate();
+                        applyUpdated(apiResponse.getData());
                     } else {
                         Toast.makeText(AdminReservationsActivity.this, apiResponse.getMessage(), Toast.LENGTH_SHORT).show();
                     }
                 } else {
-                    Toast.makeText(AdminReservationsActivity.this, "Failed to reject reservation", Toast.LENGTH_SHORT).show();
+                    String errorMessage = ApiClient.parseError(response).getDisplayMessage("Failed to reject reservation");
+                    Toast.makeText(AdminReservationsActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
                 }
             }
             
@@ -150,5 +215,76 @@ public class AdminReservationsActivity extends AppCompatActivity {
             }
         });
     }
+    
+    // Update the selection bar, called by the adapter whenever the selection changes
+    public void onSelectionChanged(int selectedCount) {
+        layoutSelectionActions.setVisibility(selectedCount > 0 ? View.VISIBLE : View.GONE);
+        textViewSelectionCount.setText(selectedCount + " selected");
+        clearSelectionOnBack.setEnabled(selectedCount > 0);
+    }
+    
+    // Approve or reject every selected reservation in a single request
+    private void batchUpdate(final String action) {
+        List<Integer> ids = adapter.getSelectedIds();
+        if (ids.isEmpty()) {
+            return;
+        }
+        
+        String token = "Bearer " + SharedPrefManager.getInstance(this).getToken();
+        
+        Map<String, Object> batch = new HashMap<>();
+        batch.put("ids", ids);
+        batch.put("action", action);
+        
+        setBatchButtonsEnabled(false);
+        Call<ApiResponse<BatchResult>> call = apiService.batchUpdateReservations(token, batch);
+        call.enqueue(new Callback<ApiResponse<BatchResult>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<BatchResult>> call, Response<ApiResponse<BatchResult>> response) {
+                setBatchButtonsEnabled(true);
+                if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
+                    BatchResult result = response.body().getData();
+                    List<Reservation> updated = result.getUpdated() != null ? result.getUpdated() : new ArrayList<Reservation>();
+                    List<BatchResult.Failure> failed = result.getFailed() != null ? result.getFailed() : new ArrayList<BatchResult.Failure>();
+                    
+                    ReservationRepository.getInstance().invalidate();
+                    reservationStore.save(updated);
+                    adapter.applyUpdates(updated);
+                    
+                    // Failed reservations stay selected so they can be retried or dealt with one by one
+                    String verb = action.equals("approve") ? "approved" : "rejected";
+                    if (failed.isEmpty()) {
+                        Toast.makeText(AdminReservationsActivity.this, updated.size() + " reservation(s) " + verb, Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(AdminReservationsActivity.this, updated.size() + " reservation(s) " + verb + ", " + failed.size()
+                                + " failed: " + failed.get(0).getMessage(), Toast.LENGTH_LONG).show();
+                    }
+                } else {
+                    String errorMessage = ApiClient.parseError(response).getDisplayMessage("Failed to update reservations");
+                    Toast.makeText(AdminReservationsActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
+                }
+            }
+            
+            @Override
+            public void onFailure(Call<ApiResponse<BatchResult>> call, Throwable t) {
+                setBatchButtonsEnabled(true);
+                Toast.makeText(AdminReservationsActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+    
+    // Swap a reservation returned by approve/reject into the list without reloading it
+    private void applyUpdated(Reservation reservation) {
+        if (reservation == null) {
+            loadReservations();
+            return;
+        }
+        reservationStore.save(Collections.singletonList(reservation));
+        adapter.applyUpdates(Collections.singletonList(reservation));
+    }
+    
+    private void setBatchButtonsEnabled(boolean enabled) {
+        buttonApproveSelected.setEnabled(enabled);
+        buttonRejectSelected.setEnabled(enabled);
+    }
 }
-
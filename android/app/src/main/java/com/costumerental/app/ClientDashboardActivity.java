@@ -13,24 +13,28 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
 import com.costumerental.app.api.ApiClient;
-import com.costumerental.app.api.ApiService;
-import com.costumerental.app.models.ApiResponse;
+import com.costumerental.app.api.EventStreamClient;
+import com.costumerental.app.database.DatabaseHelper;
 import com.costumerental.app.models.Reservation;
+import com.costumerental.app.repository.OutboxReplayer;
+import com.costumerental.app.repository.ReservationRepository;
+import com.costumerental.app.repository.ReservationStore;
+import com.costumerental.app.utils.AppExecutors;
 import com.costumerental.app.utils.NotificationHelper;
 import com.costumerental.app.utils.SharedPrefManager;
+import com.costumerental.app.work.DeadlineScheduler;
+import com.costumerental.app.work.DeadlineWorker;
 
 import java.util.List;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 // Client Dashboard Activity
 public class ClientDashboardActivity extends AppCompatActivity {
     
     private Button buttonViewCostumes, buttonMyReservations, buttonLogout;
-    private ApiService apiService;
+    private ReservationRepository reservationRepository;
     private NotificationHelper notificationHelper;
+    private DatabaseHelper databaseHelper;
+    private EventStreamClient eventStream;
     private static final int NOTIFICATION_PERMISSION_REQUEST_CODE = 100;
     
     @Override
@@ -43,8 +47,9 @@ public class ClientDashboardActivity extends AppCompatActivity {
         buttonMyReservations = findViewById(R.id.buttonMyReservations);
         buttonLogout = findViewById(R.id.buttonLogout);
         
-        apiService = ApiClient.getApiService();
+        reservationRepository = ReservationRepository.getInstance();
         notificationHelper = new NotificationHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
         
         // Request notification permission for Android 13+
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
@@ -59,6 +64,9 @@ public class ClientDashboardActivity extends AppCompatActivity {
         // Check for upcoming deadlines when activity starts
         checkUpcomingDeadlines();
         
+        // Keep syncing and reminding in the background while the app is closed
+        DeadlineScheduler.start(this);
+        
         // View costumes button
         buttonViewCostumes.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -81,7 +89,13 @@ public class ClientDashboardActivity extends AppCompatActivity {
         buttonLogout.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
+                stopEventStream();
+                DeadlineScheduler.cancel(ClientDashboardActivity.this);
+                ReservationStore.getInstance(ClientDashboardActivity.this).clear();
+                OutboxReplayer.getInstance(ClientDashboardActivity.this).clear();
                 SharedPrefManager.getInstance(ClientDashboardActivity.this).logout();
+                ApiClient.clearCache();
+                reservationRepository.clear();
                 Intent intent = new Intent(ClientDashboardActivity.this, LoginActivity.class);
                 startActivity(intent);
                 finish();
@@ -93,53 +107,63 @@ public class ClientDashboardActivity extends AppCompatActivity {
     private void viewMyReservations() {
         String token = "Bearer " + SharedPrefManager.getInstance(this).getToken();
         
-        Call<ApiResponse<List<Reservation>>> call = apiService.getMyReservations(token);
-        call.enqueue(new Callback<ApiResponse<List<Reservation>>>() {
+        reservationRepository.getMyReservations(token, false, new ReservationRepository.ReservationsCallback() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Reservation>>> call, Response<ApiResponse<List<Reservation>>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    ApiResponse<List<Reservation>> apiResponse = response.body();
-                    List<Reservation> reservations = null;
-                    
-                    if (apiResponse.getData() != null) {
-                        reservations = apiResponse.getData();
-                    }
+            public void onSuccess(List<Reservation> reservations) {
+                if (reservations != null && !reservations.isEmpty()) {
+                    StringBuilder message = new StringBuilder("You have " + reservations.size() + " reservation(s):\n");
+                    SharedPrefManager prefManager = SharedPrefManager.getInstance(ClientDashboardActivity.this);
                     
-                    if (reservations != null && !reservations.isEmpty()) {
-                        StringBuilder message = new StringBuilder("You have " + reservations.size() + " reservation(s):\n");
-                        SharedPrefManager prefManager = SharedPrefManager.getInstance(ClientDashboardActivity.this);
+                    for (Reservation res : reservations) {
+                        String status = res.getStatus() != null ? res.getStatus() : "pending";
+                        String statusText = status.substring(0, 1).toUpperCase() + status.substring(1);
+                        message.append("- ").append(res.getCostume() != null ? res.getCostume().getName() : "Costume")
+                               .append(" (").append(statusText).append(")\n");
                         
-                        for (Reservation res : reservations) {
-                            String status = res.getStatus() != null ? res.getStatus() : "pending";
-                            String statusText = status.substring(0, 1).toUpperCase() + status.substring(1);
-                            message.append("- ").append(res.getCostume() != null ? res.getCostume().getName() : "Costume")
-                                   .append(" (").append(statusText).append(")\n");
-                            
-                            // Check for status changes
-                            String lastStatus = prefManager.getReservationStatus(res.getId());
-                            if (lastStatus != null && !lastStatus.equals(status)) {
-                                // Status changed - show notification
-                                notificationHelper.showStatusChangeNotification(res);
-                            }
-                            
-                            // Save current status
-                            prefManager.saveReservationStatus(res.getId(), status);
+                        // Check for status changes
+                        String lastStatus = prefManager.getReservationStatus(res.getId());
+                        if (lastStatus != null && !lastStatus.equals(status)) {
+                            // Status changed - show notification
+                            notificationHelper.showStatusChangeNotification(res);
                         }
-                        Toast.makeText(ClientDashboardActivity.this, message.toString(), Toast.LENGTH_LONG).show();
                         
-                        // Check for upcoming deadlines
-                        notificationHelper.checkUpcomingDeadlines(reservations);
-                    } else {
-                        Toast.makeText(ClientDashboardActivity.this, "No reservations found", Toast.LENGTH_SHORT).show();
+                        // Save current status
+                        prefManager.saveReservationStatus(res.getId(), status);
                     }
+                    Toast.makeText(ClientDashboardActivity.this, message.toString(), Toast.LENGTH_LONG).show();
+                    
+                    // Refresh the local copy and check for upcoming deadlines
+                    saveAndCheckDeadlines(reservations);
                 } else {
-                    Toast.makeText(ClientDashboardActivity.this, "Failed to load reservations", Toast.LENGTH_SHORT).show();
+                    Toast.makeText(ClientDashboardActivity.this, "No reservations found", Toast.LENGTH_SHORT).show();
                 }
             }
             
             @Override
-            public void onFailure(Call<ApiResponse<List<Reservation>>> call, Throwable t) {
-                Toast.makeText(ClientDashboardActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(final String message) {
+                showStoredReservations(message);
+            }
+        });
+    }
+    
+    // Offline: list the reservations stored by the last sync, or show the error if there are none
+    private void showStoredReservations(final String error) {
+        int userId = SharedPrefManager.getInstance(this).getUserId();
+        ReservationStore.getInstance(this).loadForUser(userId, new ReservationStore.Callback() {
+            @Override
+            public void onLoaded(List<Reservation> reservations) {
+                if (reservations.isEmpty()) {
+                    Toast.makeText(ClientDashboardActivity.this, error, Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                StringBuilder message = new StringBuilder("Offline - last known " + reservations.size() + " reservation(s):\n");
+                for (Reservation res : reservations) {
+                    String status = res.getStatus() != null ? res.getStatus() : "pending";
+                    String statusText = status.substring(0, 1).toUpperCase() + status.substring(1);
+                    message.append("- ").append(res.getCostume() != null ? res.getCostume().getName() : "Costume")
+                           .append(" (").append(statusText).append(")\n");
+                }
+                Toast.makeText(ClientDashboardActivity.this, message.toString(), Toast.LENGTH_LONG).show();
             }
         });
     }
@@ -153,47 +177,54 @@ public class ClientDashboardActivity extends AppCompatActivity {
         
         token = "Bearer " + token;
         
-        Call<ApiResponse<List<Reservation>>> call = apiService.getMyReservations(token);
-        call.enqueue(new Callback<ApiResponse<List<Reservation>>>() {
+        // onCreate and the permission result both land here, the repository turns that into a single request
+        reservationRepository.getMyReservations(token, false, new ReservationRepository.ReservationsCallback() {
             @Override
-            public void onResponse(Call<ApiResponse<List<Reservation>>> call, Response<ApiResponse<List<Reservation>>> response) {
+            public void onSuccess(List<Reservation> reservations) {
                 try {
-                    if (response.isSuccessful() && response.body() != null) {
-                        ApiResponse<List<Reservation>> apiResponse = response.body();
-                        if (apiResponse.getData() != null) {
-                            List<Reservation> reservations = apiResponse.getData();
-                            SharedPrefManager prefManager = SharedPrefManager.getInstance(ClientDashboardActivity.this);
-                            
-                            // Check for status changes
-                            for (Reservation res : reservations) {
-                                try {
-                                    String currentStatus = res.getStatus() != null ? res.getStatus() : "pending";
-                                    String lastStatus = prefManager.getReservationStatus(res.getId());
-                                    if (lastStatus != null && !lastStatus.equals(currentStatus)) {
-                                        // Status changed - show notification
-                                        notificationHelper.showStatusChangeNotification(res);
-                                    }
-                                    // Save current status
-                                    prefManager.saveReservationStatus(res.getId(), currentStatus);
-                                } catch (Exception e) {
-                                    // Skip this reservation if there's an error
-                                    android.util.Log.e("ClientDashboard", "Error processing reservation: " + e.getMessage());
-                                }
+                    SharedPrefManager prefManager = SharedPrefManager.getInstance(ClientDashboardActivity.this);
+                    
+                    // Check for status changes
+                    for (Reservation res : reservations) {
+                        try {
+                            String currentStatus = res.getStatus() != null ? res.getStatus() : "pending";
+                            String lastStatus = prefManager.getReservationStatus(res.getId());
+                            if (lastStatus != null && !lastStatus.equals(currentStatus)) {
+                                // Status changed - show notification
+                                notificationHelper.showStatusChangeNotification(res);
                             }
-                            
-                            // Check for upcoming deadlines
-                            notificationHelper.checkUpcomingDeadlines(reservations);
+                            // Save current status
+                            prefManager.saveReservationStatus(res.getId(), currentStatus);
+                        } catch (Exception e) {
+                            // Skip this reservation if there's an error
+                            android.util.Log.e("ClientDashboard", "Error processing reservation: " + e.getMessage());
                         }
                     }
+                    
+                    // Refresh the local copy and check for upcoming deadlines
+                    saveAndCheckDeadlines(reservations);
                 } catch (Exception e) {
                     android.util.Log.e("ClientDashboard", "Error checking deadlines: " + e.getMessage());
                 }
             }
             
             @Override
-            public void onFailure(Call<ApiResponse<List<Reservation>>> call, Throwable t) {
+            public void onError(String message) {
                 // Silently fail - notifications are not critical
-                android.util.Log.d("ClientDashboard", "Failed to check deadlines: " + t.getMessage());
+                android.util.Log.d("ClientDashboard", "Failed to check deadlines: " + message);
+            }
+        });
+    }
+    
+    // Store reservations in the local copy and remind about close deadlines, off the main thread
+    private void saveAndCheckDeadlines(List<Reservation> reservations) {
+        // The disk executor runs in order, so the check sees the saved rows
+        ReservationStore.getInstance(this).save(reservations);
+        AppExecutors.getInstance().diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                // Every visit reminds, the background run skips what was shown today
+                DeadlineWorker.notifyUpcomingDeadlines(getApplicationContext(), databaseHelper, true);
             }
         });
     }
@@ -210,10 +241,68 @@ public class ClientDashboardActivity extends AppCompatActivity {
     }
     
     @Override
-    protected void onResume() {
-        super.onResume();
-        // Check for deadlines when activity resumes
-        checkUpcomingDeadlines();
+    protected void onStart() {
+        super.onStart();
+        startEventStream();
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stopEventStream();
+    }
+    
+    // Listen for status changes of the user's reservations pushed by the server while the dashboard is visible
+    private void startEventStream() {
+        SharedPrefManager prefManager = SharedPrefManager.getInstance(this);
+        String token = prefManager.getToken();
+        if (token == null || token.isEmpty() || eventStream != null) {
+            return;
+        }
+        
+        eventStream = ApiClient.createEventStream("Bearer " + token, prefManager.getLastEventId(), new EventStreamClient.Listener() {
+            @Override
+            public void onEvent(String id, String type, String data) {
+                if (!EventStreamClient.EVENT_STATUS_CHANGED.equals(type)) {
+                    return;
+                }
+                final Reservation reservation = ApiClient.getGson().fromJson(data, Reservation.class);
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        onReservationStatusChanged(reservation);
+                    }
+                });
+            }
+        });
+        eventStream.start();
+    }
+    
+    private void stopEventStream() {
+        if (eventStream == null) {
+            return;
+        }
+        eventStream.stop();
+        SharedPrefManager prefManager = SharedPrefManager.getInstance(this);
+        if (prefManager.isLoggedIn() && eventStream.getLastEventId() != null) {
+            prefManager.saveLastEventId(eventStream.getLastEventId());
+        }
+        eventStream = null;
+    }
+    
+    // Notify about a status change pushed by the server
+    private void onReservationStatusChanged(Reservation reservation) {
+        if (reservation == null) {
+            return;
+        }
+        reservationRepository.invalidate();
+        
+        String status = reservation.getStatus() != null ? reservation.getStatus() : "pending";
+        SharedPrefManager prefManager = SharedPrefManager.getInstance(this);
+        if (!status.equals(prefManager.getReservationStatus(reservation.getId()))) {
+            notificationHelper.showStatusChangeNotification(reservation);
+        }
+        prefManager.saveReservationStatus(reservation.getId(), status);
     }
 }
 
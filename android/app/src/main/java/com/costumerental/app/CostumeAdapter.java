@@ -1,29 +1,87 @@
 package com.costumerental.app;
 
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.costumerental.app.models.Costume;
+import com.costumerental.app.models.CostumeRow;
+import com.costumerental.app.repository.CostumeCatalogSource;
+import com.costumerental.app.utils.ImageLoader;
+import com.costumerental.app.utils.ListDiffer;
 
 import java.util.List;
 
-// RecyclerView adapter for costumes
+// RecyclerView adapter for costumes. Rows come preformatted (CostumeRow), binding only sets text and colors.
 public class CostumeAdapter extends RecyclerView.Adapter<CostumeAdapter.ViewHolder> {
     
-    private List<Costume> costumes;
+    // Partial rebind: only the availability changed
+    private static final Object PAYLOAD_AVAILABILITY = "availability";
+    
+    // Rows are matched by costume ID; a row whose only change is its availability gets PAYLOAD_AVAILABILITY
+    private static final DiffUtil.ItemCallback<CostumeRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<CostumeRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull CostumeRow oldItem, @NonNull CostumeRow newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull CostumeRow oldItem, @NonNull CostumeRow newItem) {
+            return sameDetails(oldItem, newItem) && sameAvailability(oldItem, newItem);
+        }
+        
+        @Override
+        public Object getChangePayload(@NonNull CostumeRow oldItem, @NonNull CostumeRow newItem) {
+            return sameDetails(oldItem, newItem) ? PAYLOAD_AVAILABILITY : null;
+        }
+    };
+    
+    private final ListDiffer<CostumeRow> differ;
     private boolean isAdmin;
     private CostumeListActivity activity;
+    private ImageLoader imageLoader;
+    private int thumbnailSize; // px, the image view in item_costume is 72dp square
     
-    public CostumeAdapter(List<Costume> costumes, boolean isAdmin, CostumeListActivity activity) {
-        this.costumes = costumes;
+    public CostumeAdapter(List<CostumeRow> rows, boolean isAdmin, CostumeListActivity activity) {
+        this.differ = new ListDiffer<>(this, DIFF_CALLBACK, rows);
         this.isAdmin = isAdmin;
         this.activity = activity;
+        this.imageLoader = ImageLoader.getInstance(activity);
+        this.thumbnailSize = Math.round(72 * activity.getResources().getDisplayMetrics().density);
+        // No stable ids: a catalog row still loading has no costume, so it has no id it could keep once loaded.
+        // Rows are matched by DIFF_CALLBACK for search results and redrawn in place for the catalog.
+    }
+    
+    // Show another list (the catalog or search results). One list of search results replacing another is
+    // diffed in the background; the catalog is read a window at a time and cannot be, it reports its own changes.
+    public void setCostumes(List<CostumeRow> rows) {
+        if (rows instanceof CostumeCatalogSource || differ.getList() instanceof CostumeCatalogSource) {
+            differ.replace(rows);
+        } else {
+            differ.submit(rows, null);
+        }
+    }
+    
+    public List<CostumeRow> getCostumes() {
+        return differ.getList();
+    }
+    
+    // Remove a row of search results (the catalog is reloaded instead)
+    public void removeAt(int position) {
+        differ.remove(position);
+    }
+    
+    // Size in px images are decoded to for a row
+    public int getThumbnailSize() {
+        return thumbnailSize;
     }
     
     @NonNull
@@ -31,66 +89,104 @@ public class CostumeAdapter extends RecyclerView.Adapter<CostumeAdapter.ViewHold
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_costume, parent, false);
-        return new ViewHolder(view);
+        final ViewHolder holder = new ViewHolder(view);
+        
+        // One listener per row view, it reads the costume bound at click time
+        holder.buttonAction.setText(isAdmin ? "Delete" : "Reserve");
+        holder.buttonAction.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                int position = holder.getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                CostumeRow row = differ.getList().get(position);
+                if (row == null) {
+                    return;
+                }
+                Costume costume = row.getCostume();
+                if (isAdmin) {
+                    activity.deleteCostume(costume.getId());
+                } else {
+                    // Pass availability info to reservation activity
+                    activity.reserveCostume(costume.getId(), costume.isIs_available(), costume.getNext_available_date());
+                }
+            }
+        });
+        return holder;
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        CostumeRow row = differ.getList().get(position);
+        if (payloads.isEmpty() || row == null) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        bindAvailability(holder, row);
     }
     
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Costume costume = costumes.get(position);
-        holder.textViewName.setText(costume.getName());
-        holder.textViewSize.setText("Size: " + costume.getSize());
-        holder.textViewPrice.setText("Price: $" + costume.getPrice());
-        
-        // Display availability information
-        boolean isAvailable = costume.isIs_available();
-        String nextAvailableDate = costume.getNext_available_date();
-        
-        if (isAvailable) {
-            holder.textViewAvailability.setText("✓ Available Now");
-            holder.textViewAvailability.setTextColor(0xFF4CAF50); // Green
-        } else if (nextAvailableDate != null && !nextAvailableDate.isEmpty()) {
-            holder.textViewAvailability.setText("✗ Not Available Until: " + nextAvailableDate);
-            holder.textViewAvailability.setTextColor(0xFFF44336); // Red
-        } else {
-            holder.textViewAvailability.setText("✗ Not Available");
-            holder.textViewAvailability.setTextColor(0xFFF44336); // Red
+        CostumeRow row = differ.getList().get(position);
+        if (row == null) {
+            // Row still being read from the local catalog, bound again once it arrives
+            holder.textViewName.setText("Loading...");
+            imageLoader.cancel(holder.imageViewCostume);
+            holder.imageViewCostume.setImageDrawable(null);
+            holder.textViewSize.setText("");
+            holder.textViewPrice.setText("");
+            holder.textViewAvailability.setText("");
+            holder.buttonAction.setEnabled(false);
+            return;
         }
+        holder.textViewName.setText(row.getName());
+        imageLoader.load(row.getImage(), holder.imageViewCostume, thumbnailSize, thumbnailSize);
+        holder.textViewSize.setText(row.getSizeText());
+        holder.textViewPrice.setText(row.getPriceText());
         
-        if (isAdmin) {
-            holder.buttonAction.setText("Delete");
-            holder.buttonAction.setEnabled(true);
-            holder.buttonAction.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    activity.deleteCostume(costume.getId());
-                }
-            });
-        } else {
-            holder.buttonAction.setText("Reserve");
-            // Always enable reserve button - user can reserve for future dates
-            holder.buttonAction.setEnabled(true);
-            holder.buttonAction.setAlpha(1.0f);
-            holder.buttonAction.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    // Pass availability info to reservation activity
-                    activity.reserveCostume(costume.getId(), isAvailable, nextAvailableDate);
-                }
-            });
-        }
+        bindAvailability(holder, row);
+    }
+    
+    // Availability text; clients can always reserve (for future dates), so the button stays enabled
+    private void bindAvailability(@NonNull ViewHolder holder, CostumeRow row) {
+        holder.textViewAvailability.setText(row.getAvailabilityText());
+        holder.textViewAvailability.setTextColor(row.getAvailabilityColor());
+        holder.buttonAction.setEnabled(true);
+    }
+    
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        super.onViewRecycled(holder);
+        // The row is off screen, its image is not needed anymore
+        imageLoader.cancel(holder.imageViewCostume);
     }
     
     @Override
     public int getItemCount() {
-        return costumes.size();
+        return differ.getList().size();
+    }
+    
+    // Same costume apart from its availability
+    private static boolean sameDetails(CostumeRow a, CostumeRow b) {
+        return TextUtils.equals(a.getName(), b.getName())
+                && TextUtils.equals(a.getSizeText(), b.getSizeText())
+                && TextUtils.equals(a.getPriceText(), b.getPriceText())
+                && TextUtils.equals(a.getImage(), b.getImage());
+    }
+    
+    private static boolean sameAvailability(CostumeRow a, CostumeRow b) {
+        return TextUtils.equals(a.getAvailabilityText(), b.getAvailabilityText());
     }
     
     public static class ViewHolder extends RecyclerView.ViewHolder {
+        ImageView imageViewCostume;
         TextView textViewName, textViewSize, textViewPrice, textViewAvailability;
         Button buttonAction;
         
         public ViewHolder(@NonNull View itemView) {
             super(itemView);
+            imageViewCostume = itemView.findViewById(R.id.imageViewCostume);
             textViewName = itemView.findViewById(R.id.textViewName);
             textViewSize = itemView.findViewById(R.id.textViewSize);
             textViewPrice = itemView.findViewById(R.id.textViewPrice);
@@ -5,7 +5,10 @@ import android.content.Intent;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -14,13 +17,20 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.costumerental.app.api.ApiClient;
 import com.costumerental.app.api.ApiService;
-import com.costumerental.app.database.DatabaseHelper;
 import com.costumerental.app.models.ApiResponse;
 import com.costumerental.app.models.Costume;
+import com.costumerental.app.models.CostumeChanges;
+import com.costumerental.app.models.CostumeRow;
+import com.costumerental.app.repository.CostumeCatalogSource;
+import com.costumerental.app.repository.CostumePager;
+import com.costumerental.app.repository.CostumeRepository;
+import com.costumerental.app.repository.OutboxReplayer;
 import com.costumerental.app.utils.SharedPrefManager;
 
-import java.util.ArrayList;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -29,12 +39,22 @@ import retrofit2.Response;
 // Costume List Activity - Shows list of costumes
 public class CostumeListActivity extends AppCompatActivity {
     
+    // Costumes per API page
+    private static final int PAGE_SIZE = 50;
+    // Most rows whose data and images are warmed ahead of the scroll
+    private static final int MAX_ROWS_AHEAD = 30;
+    
     private RecyclerView recyclerView;
+    private LinearLayoutManager layoutManager;
     private CostumeAdapter adapter;
-    private List<Costume> costumeList;
+    private CostumeCatalogSource catalogSource;
     private boolean isAdmin;
     private ApiService apiService;
-    private DatabaseHelper databaseHelper;
+    private CostumeRepository costumeRepository;
+    private CostumePager pager;
+    private CostumePrefetcher prefetcher;
+    private EditText editTextSearch;
+    private boolean searching;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -46,18 +66,83 @@ public class CostumeListActivity extends AppCompatActivity {
         
         // Initialize
         recyclerView = findViewById(R.id.recyclerView);
-        costumeList = new ArrayList<>();
-        adapter = new CostumeAdapter(costumeList, isAdmin, this);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        // The catalog is read from the local database a window at a time as the list scrolls
+        catalogSource = new CostumeCatalogSource(this, new CostumeCatalogSource.Listener() {
+            @Override
+            public void onRangeLoaded(int positionStart, int itemCount) {
+                if (adapter.getCostumes() == catalogSource) {
+                    adapter.notifyItemRangeChanged(positionStart, itemCount);
+                }
+            }
+            
+            @Override
+            public void onRangeInserted(int positionStart, int itemCount) {
+                if (adapter.getCostumes() == catalogSource) {
+                    adapter.notifyItemRangeInserted(positionStart, itemCount);
+                }
+            }
+        });
+        adapter = new CostumeAdapter(catalogSource, isAdmin, this);
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
+        prefetcher = new CostumePrefetcher(this, adapter, MAX_ROWS_AHEAD);
+        recyclerView.addOnScrollListener(prefetcher.createScrollListener(layoutManager));
         
         apiService = ApiClient.getApiService();
-        databaseHelper = new DatabaseHelper(this);
+        costumeRepository = CostumeRepository.getInstance(this);
+        
+        // Search as you type over the local catalog, works offline too
+        editTextSearch = findViewById(R.id.editTextSearch);
+        editTextSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+            
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+            
+            @Override
+            public void afterTextChanged(Editable s) {
+                searchCostumes(s.toString().trim());
+            }
+        });
         
         // Load costumes
         loadCostumes();
     }
     
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (pager != null) {
+            pager.cancel();
+        }
+        costumeRepository.cancelSearch();
+        prefetcher.cancel();
+    }
+    
+    // Show costumes matching the query, or the whole catalog again once the query is cleared
+    private void searchCostumes(String query) {
+        if (query.isEmpty()) {
+            costumeRepository.cancelSearch();
+            if (searching) {
+                searching = false;
+                adapter.setCostumes(catalogSource);
+            }
+            return;
+        }
+        
+        searching = true;
+        costumeRepository.search(query, new CostumeRepository.Callback<List<CostumeRow>>() {
+            @Override
+            public void onResult(List<CostumeRow> rows) {
+                adapter.setCostumes(rows);
+            }
+        });
+    }
+    
     // Load costumes (online or offline)
     private void loadCostumes() {
         if (isNetworkAvailable()) {
@@ -69,31 +154,88 @@ public class CostumeListActivity extends AppCompatActivity {
         }
     }
     
-    // Load costumes from API
+    // Load costumes from API (delta sync when a cursor exists, paged catalog otherwise)
     private void loadCostumesFromAPI() {
-        String token = "Bearer " + SharedPrefManager.getInstance(this).getToken();
+        final String token = "Bearer " + SharedPrefManager.getInstance(this).getToken();
+        costumeRepository.getSyncCursor(new CostumeRepository.Callback<String>() {
+            @Override
+            public void onResult(String cursor) {
+                if (cursor != null) {
+                    syncCostumeChanges(token, cursor);
+                } else {
+                    loadCatalogPages(token);
+                }
+            }
+        });
+    }
+    
+    // Page through the catalog from the start, replacing the local copy page by page. The first page is shown
+    // right away and the next ones are fetched one after the other in the background, not as the list is
+    // scrolled, so the local copy is complete (and delta sync can start) without the user reaching the end.
+    private void loadCatalogPages(String token) {
+        if (pager != null) {
+            pager.cancel();
+        }
         
-        Call<ApiResponse<List<Costume>>> call = apiService.getCostumes(token);
-        call.enqueue(new Callback<ApiResponse<List<Costume>>>() {
-            @Override
-            public void onResponse(Call<ApiResponse<List<Costume>>> call, Response<ApiResponse<List<Costume>>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    ApiResponse<List<Costume>> apiResponse = response.body();
-                    List<Costume> costumes = null;
-                    
-                    // Get from data field (Laravel returns data as array)
-                    if (apiResponse.getData() != null) {
-                        costumes = apiResponse.getData();
-                    }
-                    
-                    if (costumes != null && !costumes.isEmpty()) {
-                        costumeList.clear();
-                        costumeList.addAll(costumes);
-                        adapter.notifyDataSetChanged();
-                        
-                        // Save to local database
-                        databaseHelper.saveCostumes(costumes);
+        pager = new CostumePager(apiService, token, PAGE_SIZE, new CostumePager.Listener() {
+            @Override
+            public void onPageLoaded(List<Costume> page, final int afterId, final Integer nextCursor) {
+                final CostumePager loadedBy = pager;
+                // Save to local database; with the last page stored, delta sync can start from the first page's cursor.
+                // Not before: rows past the stored pages are still the old copy, and a costume deleted from the
+                // server before the cursor would never be reported by delta sync.
+                costumeRepository.saveCostumePage(page, afterId, nextCursor, pager.getSyncCursor(), new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadedBy != pager) {
+                            return; // List reloaded meanwhile
+                        }
+                        // Stored pages replace the local copy up to nextCursor, rows past it are still the old copy
+                        if (afterId == 0) {
+                            showCatalog(nextCursor, null);
+                        } else {
+                            catalogSource.extend(nextCursor);
+                        }
+                        // Next page once this one is stored, does nothing after the last one
+                        pager.loadNextPage();
                     }
+                });
+            }
+            
+            @Override
+            public void onPageFailed(int afterId, Throwable t) {
+                if (afterId == 0) {
+                    // If API fails, try local
+                    loadCostumesFromLocal();
+                } else {
+                    Toast.makeText(CostumeListActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+        pager.loadNextPage();
+    }
+    
+    // Fetch only costumes changed or deleted since the cursor and merge them into the local copy
+    private void syncCostumeChanges(final String token, final String cursor) {
+        Call<ApiResponse<CostumeChanges>> call = apiService.getCostumeChanges(token, cursor);
+        call.enqueue(new Callback<ApiResponse<CostumeChanges>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<CostumeChanges>> call, Response<ApiResponse<CostumeChanges>> response) {
+                // Availability is relative to the server's today, so a cursor from an earlier day (server
+                // time, like the cursor) forces a full reload. Without the header, the device's date is used.
+                String serverDate = response.headers().get(ApiService.HEADER_SERVER_DATE);
+                if (serverDate == null) {
+                    serverDate = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+                }
+                if (response.isSuccessful() && !cursor.startsWith(serverDate)) {
+                    loadCatalogPages(token);
+                } else if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
+                    costumeRepository.applyChanges(response.body().getData(), new Runnable() {
+                        @Override
+                        public void run() {
+                            showCatalog(null, null);
+                        }
+                    });
                 } else {
                     // If API fails, try local
                     loadCostumesFromLocal();
@@ -101,25 +243,41 @@ public class CostumeListActivity extends AppCompatActivity {
             }
             
             @Override
-            public void onFailure(Call<ApiResponse<List<Costume>>> call, Throwable t) {
+            public void onFailure(Call<ApiResponse<CostumeChanges>> call, Throwable t) {
                 // If API fails, try local
                 loadCostumesFromLocal();
             }
         });
     }
     
+    // Reload the catalog from the local database (costumes up to upToId, null for all), search results stay
+    // on screen and the catalog shows up once the search is cleared; onShown runs once the first rows are in
+    private void showCatalog(Integer upToId, final Runnable onShown) {
+        catalogSource.refresh(upToId, new Runnable() {
+            @Override
+            public void run() {
+                if (!searching) {
+                    adapter.setCostumes(catalogSource);
+                }
+                if (onShown != null) {
+                    onShown.run();
+                }
+            }
+        });
+    }
+    
     // Load costumes from local database
     private void loadCostumesFromLocal() {
-        List<Costume> costumes = databaseHelper.getAllCostumes();
-        costumeList.clear();
-        costumeList.addAll(costumes);
-        adapter.notifyDataSetChanged();
-        
-        if (costumes.isEmpty()) {
-            Toast.makeText(this, "No costumes available offline", Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, "Loaded from offline storage", Toast.LENGTH_SHORT).show();
-        }
+        showCatalog(null, new Runnable() {
+            @Override
+            public void run() {
+                if (catalogSource.isEmpty()) {
+                    Toast.makeText(CostumeListActivity.this, "No costumes available offline", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(CostumeListActivity.this, "Loaded from offline storage", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
     }
     
     // Check network availability
@@ -130,10 +288,13 @@ public class CostumeListActivity extends AppCompatActivity {
     }
     
     // Delete costume (admin only)
-    public void deleteCostume(int costumeId) {
-        String token = "Bearer " + SharedPrefManager.getInstance(this).getToken();
+    public void deleteCostume(final int costumeId) {
+        final String token = "Bearer " + SharedPrefManager.getInstance(this).getToken();
         
-        Call<ApiResponse<Void>> call = apiService.deleteCostume(token, costumeId);
+        // Same key if this request has to be replayed from the outbox
+        final String idempotencyKey = OutboxReplayer.newIdempotencyKey();
+        
+        Call<ApiResponse<Void>> call = apiService.deleteCostume(token, idempotencyKey, costumeId);
         call.enqueue(new Callback<ApiResponse<Void>>() {
             @Override
             public void onResponse(Call<ApiResponse<Void>> call, Response<ApiResponse<Void>> response) {
@@ -147,11 +308,44 @@ public class CostumeListActivity extends AppCompatActivity {
             
             @Override
             public void onFailure(Call<ApiResponse<Void>> call, Throwable t) {
+                // No connection: queue the delete and drop the costume from the local copy right away
+                if (ApiClient.isConnectivityFailure(t) && !call.isCanceled()) {
+                    OutboxReplayer.getInstance(CostumeListActivity.this).enqueue(OutboxReplayer.OP_DELETE_COSTUME,
+                            costumeId, null, idempotencyKey, token, "Delete of " + removeLocalCostume(costumeId));
+                    Toast.makeText(CostumeListActivity.this, "You are offline. The costume will be deleted when the connection is back.", Toast.LENGTH_LONG).show();
+                    return;
+                }
                 Toast.makeText(CostumeListActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
     }
     
+    // Remove a costume from the local database and the list, returns its name for display
+    private String removeLocalCostume(int costumeId) {
+        Costume costume = catalogSource.findLoaded(costumeId);
+        String name = costume != null ? costume.getName() : "costume #" + costumeId;
+        
+        // Search results on screen are a plain list
+        List<CostumeRow> shown = adapter.getCostumes();
+        if (shown != catalogSource) {
+            for (int i = 0; i < shown.size(); i++) {
+                if (shown.get(i).getId() == costumeId) {
+                    name = shown.get(i).getName();
+                    adapter.removeAt(i);
+                    break;
+                }
+            }
+        }
+        
+        costumeRepository.removeCostume(costumeId, new Runnable() {
+            @Override
+            public void run() {
+                showCatalog(catalogSource.getUpToId(), null);
+            }
+        });
+        return name;
+    }
+    
     // Reserve costume (client only)
     public void reserveCostume(int costumeId, boolean isAvailable, String nextAvailableDate) {
         Intent intent = new Intent(this, ReservationActivity.class);
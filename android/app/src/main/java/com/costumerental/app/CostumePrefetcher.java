@@ -0,0 +1,153 @@
+package com.costumerental.app;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.costumerental.app.models.CostumeRow;
+import com.costumerental.app.repository.CostumeCatalogSource;
+import com.costumerental.app.utils.ImageLoader;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Warms the rows about to scroll into view: their catalog window is read from SQLite and their image
+// is decoded into the memory cache. How far ahead depends on the scroll speed, capped by maxRowsAhead
+// and by the memory cache budget. Prefetches that fall out of range are cancelled. On a metered
+// connection images are only read back from the disk cache, never downloaded ahead. Main thread only.
+public class CostumePrefetcher {
+    
+    // Look ahead as many rows as the list will scroll through in this time at the current speed
+    private static final long LOOKAHEAD_MS = 1000;
+    // Scroll events further apart than this start a new speed estimate
+    private static final long SPEED_RESET_MS = 200;
+    
+    private final CostumeAdapter adapter;
+    private final ImageLoader imageLoader;
+    private final ConnectivityManager connectivityManager;
+    private final int maxRowsAhead;
+    
+    private final Map<Integer, String> pending = new HashMap<>(); // Image prefetches by row
+    private List<CostumeRow> prefetchedList; // The list pending refers to
+    private float speed; // px per ms, smoothed
+    private long lastScrollTime;
+    private boolean metered;
+    
+    public CostumePrefetcher(Context context, CostumeAdapter adapter, int maxRowsAhead) {
+        this.adapter = adapter;
+        this.imageLoader = ImageLoader.getInstance(context);
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.maxRowsAhead = maxRowsAhead;
+        this.metered = connectivityManager != null && connectivityManager.isActiveNetworkMetered();
+    }
+    
+    // Scroll listener that prefetches in the direction the list moves
+    public RecyclerView.OnScrollListener createScrollListener(final LinearLayoutManager layoutManager) {
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                    // Checked once per gesture, not on every frame
+                    metered = connectivityManager != null && connectivityManager.isActiveNetworkMetered();
+                }
+            }
+            
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy == 0) {
+                    return;
+                }
+                int first = layoutManager.findFirstVisibleItemPosition();
+                int last = layoutManager.findLastVisibleItemPosition();
+                if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                updateSpeed(Math.abs(dy));
+                
+                int visible = last - first + 1;
+                float rowHeight = (float) recyclerView.getHeight() / visible;
+                int rowsAhead = rowHeight > 0 ? Math.round(speed * LOOKAHEAD_MS / rowHeight) : 0;
+                // At least a screen ahead, at most what was configured and what the memory cache can hold
+                rowsAhead = Math.max(rowsAhead, visible);
+                rowsAhead = Math.min(rowsAhead, maxRowsAhead);
+                rowsAhead = Math.min(rowsAhead, imageLoader.prefetchLimit(adapter.getThumbnailSize(), adapter.getThumbnailSize()));
+                
+                if (dy > 0) {
+                    prefetch(last + 1, last + rowsAhead);
+                } else {
+                    prefetch(first - rowsAhead, first - 1);
+                }
+            }
+        };
+    }
+    
+    // Drop every image prefetch (list replaced or screen closed)
+    public void cancel() {
+        for (String key : pending.values()) {
+            imageLoader.cancelPrefetch(key);
+        }
+        pending.clear();
+        prefetchedList = null;
+    }
+    
+    private void updateSpeed(int distance) {
+        long now = SystemClock.uptimeMillis();
+        long elapsed = now - lastScrollTime;
+        lastScrollTime = now;
+        if (elapsed <= 0) {
+            return;
+        }
+        float current = (float) distance / elapsed;
+        speed = elapsed > SPEED_RESET_MS ? current : speed * 0.7f + current * 0.3f;
+    }
+    
+    // Prefetch rows from to to (both included) and cancel image prefetches outside them
+    private void prefetch(int from, int to) {
+        List<CostumeRow> costumes = adapter.getCostumes();
+        if (costumes != prefetchedList) {
+            cancel();
+            prefetchedList = costumes;
+        }
+        from = Math.max(from, 0);
+        to = Math.min(to, costumes.size() - 1);
+        
+        // Rows scrolled past or left behind by a change of direction; rows now on screen keep their download
+        Iterator<Map.Entry<Integer, String>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            if (entry.getKey() < from || entry.getKey() > to) {
+                imageLoader.cancelPrefetch(entry.getValue());
+                iterator.remove();
+            }
+        }
+        
+        CostumeCatalogSource catalog = costumes instanceof CostumeCatalogSource ? (CostumeCatalogSource) costumes : null;
+        int size = adapter.getThumbnailSize();
+        for (int position = from; position <= to; position++) {
+            if (pending.containsKey(position)) {
+                continue;
+            }
+            CostumeRow row;
+            if (catalog != null) {
+                // Reads the window if needed, its images are prefetched on a later scroll once it is in
+                catalog.prefetch(position);
+                row = catalog.peek(position);
+            } else {
+                row = costumes.get(position);
+            }
+            if (row == null) {
+                continue;
+            }
+            String key = imageLoader.prefetch(row.getImage(), size, size, metered);
+            if (key != null) {
+                pending.put(position, key);
+            }
+        }
+    }
+}
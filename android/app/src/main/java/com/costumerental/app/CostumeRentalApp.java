@@ -0,0 +1,21 @@
+package com.costumerental.app;
+
+import android.app.Application;
+
+import com.costumerental.app.api.ApiClient;
+import com.costumerental.app.repository.OutboxReplayer;
+
+// Application class - process-wide setup that must run before any activity
+public class CostumeRentalApp extends Application {
+    
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        
+        // Enable the HTTP response cache for API calls
+        ApiClient.init(this);
+        
+        // Send writes queued while offline, now and whenever the network comes back
+        OutboxReplayer.getInstance(this).start();
+    }
+}
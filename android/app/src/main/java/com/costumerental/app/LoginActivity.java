@@ -129,41 +129,7 @@ public class LoginActivity extends AppCompatActivity {
                         Toast.makeText(LoginActivity.this, errorMsg, Toast.LENGTH_SHORT).show();
                     }
                 } else {
-                    // Try to parse error response
-                    String errorMessage = "Login failed (Code: " + response.code() + ")";
-                    try {
-                        if (response.errorBody() != null) {
-                            java.io.BufferedReader reader = new java.io.BufferedReader(
-                                new java.io.InputStreamReader(response.errorBody().byteStream(), "UTF-8"));
-                            StringBuilder errorJson = new StringBuilder();
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                errorJson.append(line);
-                            }
-                            reader.close();
-                            
-                            // Try to parse as ApiResponse
-                            com.google.gson.Gson gson = new com.google.gson.Gson();
-                            ApiResponse<?> errorApiResponse = gson.fromJson(errorJson.toString(), ApiResponse.class);
-                            if (errorApiResponse != null && errorApiResponse.getMessage() != null) {
-                                errorMessage = errorApiResponse.getMessage();
-                            } else {
-                                // Try to parse Laravel validation errors
-                                try {
-                                    com.google.gson.JsonObject jsonObject = gson.fromJson(errorJson.toString(), com.google.gson.JsonObject.class);
-                                    if (jsonObject.has("message")) {
-                                        errorMessage = jsonObject.get("message").getAsString();
-                                    }
-                                } catch (Exception e2) {
-                                    // If parsing fails, show raw error
-                                    errorMessage = "Error: " + errorJson.toString().substring(0, Math.min(100, errorJson.length()));
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        android.util.Log.e("LoginActivity", "Error parsing response: " + e.getMessage());
-                    }
-                    
+                    String errorMessage = ApiClient.parseError(response).getDisplayMessage("Login failed");
                     Toast.makeText(LoginActivity.this, errorMessage, Toast.LENGTH_LONG).show();
                     android.util.Log.e("LoginActivity", "Login failed: " + errorMessage);
                 }
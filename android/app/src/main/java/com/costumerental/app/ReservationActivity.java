@@ -1,6 +1,7 @@
 package com.costumerental.app;
 
 import android.app.DatePickerDialog;
+import android.content.DialogInterface;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.Button;
@@ -8,12 +9,18 @@ import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.costumerental.app.api.ApiClient;
 import com.costumerental.app.api.ApiService;
 import com.costumerental.app.models.ApiResponse;
 import com.costumerental.app.models.Reservation;
+import com.costumerental.app.repository.CostumeRepository;
+import com.costumerental.app.repository.OutboxReplayer;
+import com.costumerental.app.repository.ReservationRepository;
+import com.costumerental.app.utils.AvailabilityIndex;
+import com.costumerental.app.utils.DateUtils;
 import com.costumerental.app.utils.NotificationHelper;
 import com.costumerental.app.utils.SharedPrefManager;
 
@@ -42,6 +49,7 @@ public class ReservationActivity extends AppCompatActivity {
     private boolean isCostumeAvailable;
     private String nextAvailableDate;
     private TextView textViewAvailabilityInfo;
+    private AvailabilityIndex availabilityIndex; // Stored bookings of the costume, null until loaded
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -77,15 +85,19 @@ public class ReservationActivity extends AppCompatActivity {
         editTextEndDate.setHint("Tap to select end date");
         
         // Display availability information
-        if (!isCostumeAvailable && nextAvailableDate != null && !nextAvailableDate.isEmpty()) {
-            textViewAvailabilityInfo.setVisibility(View.VISIBLE);
-            textViewAvailabilityInfo.setText("⚠ This costume is currently booked. You can reserve it starting from: " + nextAvailableDate);
-            textViewAvailabilityInfo.setTextColor(0xFFFF9800); // Orange
-        } else if (isCostumeAvailable) {
-            textViewAvailabilityInfo.setVisibility(View.GONE);
-        } else {
-            textViewAvailabilityInfo.setVisibility(View.GONE);
-        }
+        showAvailability();
+        
+        // The list's availability dates from its last sync, the stored bookings tell it for today
+        CostumeRepository.getInstance(this).loadAvailability(costumeId, new CostumeRepository.Callback<AvailabilityIndex>() {
+            @Override
+            public void onResult(AvailabilityIndex index) {
+                availabilityIndex = index;
+                int today = DateUtils.todayEpochDay();
+                isCostumeAvailable = index.isAvailableOn(today);
+                nextAvailableDate = isCostumeAvailable ? null : DateUtils.formatEpochDay(index.nextAvailableDay(today));
+                showAvailability();
+            }
+        });
         
         apiService = ApiClient.getApiService();
         notificationHelper = new NotificationHelper(this);
@@ -115,6 +127,17 @@ public class ReservationActivity extends AppCompatActivity {
         });
     }
     
+    // Show whether the costume is booked and from when it can be reserved
+    private void showAvailability() {
+        if (!isCostumeAvailable && nextAvailableDate != null && !nextAvailableDate.isEmpty()) {
+            textViewAvailabilityInfo.setVisibility(View.VISIBLE);
+            textViewAvailabilityInfo.setText("⚠ This costume is currently booked. You can reserve it starting from: " + nextAvailableDate);
+            textViewAvailabilityInfo.setTextColor(0xFFFF9800); // Orange
+        } else {
+            textViewAvailabilityInfo.setVisibility(View.GONE);
+        }
+    }
+    
     // Show start date picker
     private void showStartDatePicker() {
         DatePickerDialog datePickerDialog = new DatePickerDialog(
@@ -169,6 +192,9 @@ public class ReservationActivity extends AppCompatActivity {
                 endCalendar.set(Calendar.MONTH, month);
                 endCalendar.set(Calendar.DAY_OF_MONTH, dayOfMonth);
                 editTextEndDate.setText(dateFormat.format(endCalendar.getTime()));
+                
+                // Tell right away if the range is taken
+                checkDatesFree(editTextStartDate.getText().toString(), editTextEndDate.getText().toString());
             },
             endCalendar.get(Calendar.YEAR),
             endCalendar.get(Calendar.MONTH),
@@ -180,6 +206,47 @@ public class ReservationActivity extends AppCompatActivity {
         datePickerDialog.show();
     }
     
+    // True if the stored bookings leave the range free (or are not loaded yet); otherwise offer
+    // the earliest free dates of the same length from the chosen start on
+    private boolean checkDatesFree(String startDate, String endDate) {
+        int startDay = DateUtils.parseEpochDay(startDate);
+        int endDay = DateUtils.parseEpochDay(endDate);
+        if (availabilityIndex == null || startDay == DateUtils.INVALID_DAY || endDay < startDay
+                || availabilityIndex.isFree(startDay, endDay)) {
+            return true;
+        }
+        
+        int days = endDay - startDay + 1;
+        int suggestedDay = availabilityIndex.earliestFreeStart(startDay, days);
+        final String suggestedStart = DateUtils.formatEpochDay(suggestedDay);
+        final String suggestedEnd = DateUtils.formatEpochDay(suggestedDay + days - 1);
+        new AlertDialog.Builder(this)
+                .setTitle("Dates not available")
+                .setMessage("This costume is already booked during " + startDate + " to " + endDate +
+                        ". The earliest free dates for the same length are " + suggestedStart + " to " + suggestedEnd + ".")
+                .setPositiveButton("Use these dates", new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        setDates(suggestedStart, suggestedEnd);
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+        return false;
+    }
+    
+    // Fill in both dates ("yyyy-MM-dd") and move the pickers to them
+    private void setDates(String startDate, String endDate) {
+        try {
+            startCalendar.setTime(dateFormat.parse(startDate));
+            endCalendar.setTime(dateFormat.parse(endDate));
+        } catch (Exception e) {
+            return;
+        }
+        editTextStartDate.setText(startDate);
+        editTextEndDate.setText(endDate);
+    }
+    
     // Create reservation method
     private void createReservation() {
         String startDate = editTextStartDate.getText().toString().trim();
@@ -197,8 +264,8 @@ public class ReservationActivity extends AppCompatActivity {
             start.setTime(dateFormat.parse(startDate));
             end.setTime(dateFormat.parse(endDate));
             
-            // Check if start date is after next available date (if costume is not available)
-            if (!isCostumeAvailable && nextAvailableDate != null && !nextAvailableDate.isEmpty()) {
+            // Check if start date is after next available date (if costume is not available and its bookings are not loaded)
+            if (availabilityIndex == null && !isCostumeAvailable && nextAvailableDate != null && !nextAvailableDate.isEmpty()) {
                 Calendar nextAvailable = Calendar.getInstance();
                 nextAvailable.setTime(dateFormat.parse(nextAvailableDate));
                 nextAvailable.set(Calendar.HOUR_OF_DAY, 0);
@@ -240,7 +307,12 @@ public class ReservationActivity extends AppCompatActivity {
             return;
         }
         
-        Map<String, Object> reservationData = new HashMap<>();
+        // Booked dates are caught here instead of by a 409 from the server, which still has the last word
+        if (!checkDatesFree(startDate, endDate)) {
+            return;
+        }
+        
+        final Map<String, Object> reservationData = new HashMap<>();
         reservationData.put("costume_id", costumeId);
         reservationData.put("start_date", startDate);
         reservationData.put("end_date", endDate);
@@ -252,7 +324,10 @@ public class ReservationActivity extends AppCompatActivity {
             return;
         }
         
-        String token = "Bearer " + tokenValue;
+        final String token = "Bearer " + tokenValue;
+        
+        // Same key if this request has to be replayed from the outbox
+        final String idempotencyKey = OutboxReplayer.newIdempotencyKey();
         
         // Debug logging
         android.util.Log.d("ReservationActivity", "Creating reservation:");
@@ -265,7 +340,7 @@ public class ReservationActivity extends AppCompatActivity {
         buttonReserve.setEnabled(false);
         buttonReserve.setText("Creating...");
         
-        Call<ApiResponse<Reservation>> call = apiService.createReservation(token, reservationData);
+        Call<ApiResponse<Reservation>> call = apiService.createReservation(token, idempotencyKey, reservationData);
         call.enqueue(new Callback<ApiResponse<Reservation>>() {
             @Override
             public void onResponse(Call<ApiResponse<Reservation>> call, Response<ApiResponse<Reservation>> response) {
@@ -277,6 +352,9 @@ public class ReservationActivity extends AppCompatActivity {
                     if (apiResponse.isSuccess()) {
                         Toast.makeText(ReservationActivity.this, apiResponse.getMessage(), Toast.LENGTH_LONG).show();
                         
+                        // Cached reservation lists no longer include the new one
+                        ReservationRepository.getInstance().invalidate();
+                        
                         // Show notification for created reservation
                         if (apiResponse.getData() != null) {
                             notificationHelper.showStatusChangeNotification(apiResponse.getData());
@@ -292,60 +370,8 @@ public class ReservationActivity extends AppCompatActivity {
                         }
                     }
                 } else {
-                    // Parse error response properly
-                    String errorMessage = "Failed to create reservation (Code: " + response.code() + ")";
-                    try {
-                        if (response.errorBody() != null) {
-                            // Read the error body as string
-                            java.io.BufferedReader reader = new java.io.BufferedReader(
-                                new java.io.InputStreamReader(response.errorBody().byteStream(), "UTF-8"));
-                            StringBuilder errorJson = new StringBuilder();
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                errorJson.append(line);
-                            }
-                            reader.close();
-                            
-                            // Try to parse as ApiResponse
-                            com.google.gson.Gson gson = new com.google.gson.Gson();
-                            ApiResponse<?> errorApiResponse = gson.fromJson(errorJson.toString(), ApiResponse.class);
-                            if (errorApiResponse != null && errorApiResponse.getMessage() != null) {
-                                errorMessage = errorApiResponse.getMessage();
-                            } else {
-                                // Try to parse Laravel validation errors
-                                try {
-                                    com.google.gson.JsonObject jsonObject = gson.fromJson(errorJson.toString(), com.google.gson.JsonObject.class);
-                                    if (jsonObject.has("message")) {
-                                        errorMessage = jsonObject.get("message").getAsString();
-                                    } else if (jsonObject.has("errors")) {
-                                        // Laravel validation errors format
-                                        com.google.gson.JsonObject errors = jsonObject.getAsJsonObject("errors");
-                                        StringBuilder validationErrors = new StringBuilder();
-                                        for (String key : errors.keySet()) {
-                                            com.google.gson.JsonArray fieldErrors = errors.getAsJsonArray(key);
-                                            for (int i = 0; i < fieldErrors.size(); i++) {
-                                                if (validationErrors.length() > 0) {
-                                                    validationErrors.append("\n");
-                                                }
-                                                validationErrors.append(fieldErrors.get(i).getAsString());
-                                            }
-                                        }
-                                        if (validationErrors.length() > 0) {
-                                            errorMessage = validationErrors.toString();
-                                        }
-                                    }
-                                } catch (Exception e2) {
-                                    // If parsing fails, show raw error
-                                    errorMessage = "Error: " + errorJson.toString().substring(0, Math.min(100, errorJson.length()));
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        android.util.Log.e("ReservationActivity", "Error parsing response: " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                    
-                    // Show error message
+                    // 409 (costume already booked) and 422 (validation) carry the reason in the body
+                    String errorMessage = ApiClient.parseError(response).getDisplayMessage("Failed to create reservation");
                     Toast.makeText(ReservationActivity.this, errorMessage, Toast.LENGTH_LONG).show();
                     android.util.Log.e("ReservationActivity", "Reservation failed: " + errorMessage);
                 }
@@ -355,6 +381,16 @@ public class ReservationActivity extends AppCompatActivity {
             public void onFailure(Call<ApiResponse<Reservation>> call, Throwable t) {
                 buttonReserve.setEnabled(true);
                 buttonReserve.setText("Reserve");
+                
+                // No connection: keep the reservation in the outbox and send it when the network is back
+                if (ApiClient.isConnectivityFailure(t) && !call.isCanceled()) {
+                    OutboxReplayer.getInstance(ReservationActivity.this).enqueue(OutboxReplayer.OP_CREATE_RESERVATION,
+                            costumeId, reservationData, idempotencyKey, token,
+                            "Reservation of costume #" + costumeId + " from " + startDate + " to " + endDate);
+                    Toast.makeText(ReservationActivity.this, "You are offline. The reservation will be sent when the connection is back.", Toast.LENGTH_LONG).show();
+                    finish();
+                    return;
+                }
                 Toast.makeText(ReservationActivity.this, "Error: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
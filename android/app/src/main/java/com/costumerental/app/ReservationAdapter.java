@@ -1,5 +1,6 @@
 package com.costumerental.app;
 
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -7,21 +8,70 @@ import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.costumerental.app.models.Reservation;
+import com.costumerental.app.models.ReservationRow;
+import com.costumerental.app.utils.ListDiffer;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
-// RecyclerView adapter for reservations
+// RecyclerView adapter for reservations. Rows are formatted (ReservationRow) on a background thread
+// when a list is submitted, binding only sets text and colors.
 public class ReservationAdapter extends RecyclerView.Adapter<ReservationAdapter.ViewHolder> {
     
-    private List<Reservation> reservations;
+    // Partial rebinds: only the status changed, or only the selection highlight
+    private static final Object PAYLOAD_STATUS = "status";
+    private static final Object PAYLOAD_SELECTION = "selection";
+    
+    // Rows are matched by reservation ID; a row whose only change is its status gets PAYLOAD_STATUS
+    private static final DiffUtil.ItemCallback<ReservationRow> DIFF_CALLBACK = new DiffUtil.ItemCallback<ReservationRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ReservationRow oldItem, @NonNull ReservationRow newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+        
+        @Override
+        public boolean areContentsTheSame(@NonNull ReservationRow oldItem, @NonNull ReservationRow newItem) {
+            return sameDetails(oldItem, newItem) && TextUtils.equals(oldItem.getStatusText(), newItem.getStatusText());
+        }
+        
+        @Override
+        public Object getChangePayload(@NonNull ReservationRow oldItem, @NonNull ReservationRow newItem) {
+            return sameDetails(oldItem, newItem) ? PAYLOAD_STATUS : null;
+        }
+    };
+    
+    private final ListDiffer<ReservationRow> differ;
     private AdminReservationsActivity activity;
     
-    public ReservationAdapter(List<Reservation> reservations, AdminReservationsActivity activity) {
-        this.reservations = reservations;
+    // Multi-select: long press a pending reservation to start, then tap to add or remove
+    private final Set<Integer> selectedIds = new LinkedHashSet<>();
+    private List<Reservation> latest; // Last list submitted, shown once its rows are built and diffed
+    
+    public ReservationAdapter(AdminReservationsActivity activity) {
         this.activity = activity;
+        this.latest = new ArrayList<>();
+        this.differ = new ListDiffer<>(this, DIFF_CALLBACK, new ArrayList<ReservationRow>());
+        setHasStableIds(true);
+    }
+    
+    // Show a new list of reservations, only rows that changed are redrawn; onShown (may be null) runs after
+    public void submitList(List<Reservation> reservations, Runnable onShown) {
+        final List<Reservation> submitted = new ArrayList<>(reservations);
+        latest = submitted;
+        retainPendingSelection(submitted);
+        differ.submit(new ListDiffer.Builder<ReservationRow>() {
+            @Override
+            public List<ReservationRow> build() {
+                return ReservationRow.fromAll(submitted);
+            }
+        }, onShown);
     }
     
     @NonNull
@@ -29,70 +79,174 @@ public class ReservationAdapter extends RecyclerView.Adapter<ReservationAdapter.
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_reservation, parent, false);
-        return new ViewHolder(view);
-    }
-    
-    @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Reservation reservation = reservations.get(position);
-        
-        // Set costume name
-        if (reservation.getCostume() != null) {
-            holder.textViewCostumeName.setText(reservation.getCostume().getName());
-        } else {
-            holder.textViewCostumeName.setText("Costume #" + reservation.getCostume_id());
-        }
-        
-        // Set user name
-        if (reservation.getUser() != null) {
-            holder.textViewUserName.setText("User: " + reservation.getUser().getName());
-        } else {
-            holder.textViewUserName.setText("User ID: " + reservation.getUser_id());
-        }
-        
-        // Set dates
-        holder.textViewDates.setText("Dates: " + reservation.getStart_date() + " to " + reservation.getEnd_date());
-        
-        // Set status
-        String status = reservation.getStatus() != null ? reservation.getStatus() : "pending";
-        String statusText = status.substring(0, 1).toUpperCase() + status.substring(1);
-        holder.textViewStatus.setText("Status: " + statusText);
-        
-        // Set status color
-        int statusColor;
-        if (status.equals("approved")) {
-            statusColor = 0xFF4CAF50; // Green
-        } else if (status.equals("rejected")) {
-            statusColor = 0xFFF44336; // Red
-        } else {
-            statusColor = 0xFFFF9800; // Orange
-        }
-        holder.textViewStatus.setTextColor(statusColor);
-        
-        // Enable/disable buttons based on status
-        boolean isPending = status.equals("pending");
-        holder.buttonApprove.setEnabled(isPending);
-        holder.buttonReject.setEnabled(isPending);
+        final ViewHolder holder = new ViewHolder(view);
         
-        // Set click listeners
+        // One set of listeners per row view, they read the reservation bound at click time
         holder.buttonApprove.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                activity.approveReservation(reservation.getId());
+                ReservationRow row = rowAt(holder);
+                if (row != null) {
+                    activity.approveReservation(row.getId());
+                }
             }
         });
         
         holder.buttonReject.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                activity.rejectReservation(reservation.getId());
+                ReservationRow row = rowAt(holder);
+                if (row != null) {
+                    activity.rejectReservation(row.getId());
+                }
+            }
+        });
+        
+        holder.itemView.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                ReservationRow row = rowAt(holder);
+                if (row == null || !row.isPending()) {
+                    return false;
+                }
+                toggleSelection(row.getId(), holder.getBindingAdapterPosition());
+                return true;
+            }
+        });
+        
+        holder.itemView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                // Taps only select while a selection is in progress
+                ReservationRow row = rowAt(holder);
+                if (row != null && row.isPending() && !selectedIds.isEmpty()) {
+                    toggleSelection(row.getId(), holder.getBindingAdapterPosition());
+                }
             }
         });
+        return holder;
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        ReservationRow row = differ.getList().get(position);
+        if (payloads.contains(PAYLOAD_STATUS)) {
+            bindStatus(holder, row);
+        } else {
+            holder.itemView.setActivated(selectedIds.contains(row.getId()));
+        }
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        ReservationRow row = differ.getList().get(position);
+        holder.textViewCostumeName.setText(row.getCostumeText());
+        holder.textViewUserName.setText(row.getUserText());
+        holder.textViewDates.setText(row.getDatesText());
+        
+        bindStatus(holder, row);
+    }
+    
+    // Status, buttons and selection: everything that depends on the status
+    private void bindStatus(@NonNull ViewHolder holder, ReservationRow row) {
+        holder.textViewStatus.setText(row.getStatusText());
+        holder.textViewStatus.setTextColor(row.getStatusColor());
+        
+        // Only pending reservations can be approved or rejected
+        holder.buttonApprove.setEnabled(row.isPending());
+        holder.buttonReject.setEnabled(row.isPending());
+        
+        // Highlight selected rows
+        holder.itemView.setActivated(selectedIds.contains(row.getId()));
     }
     
     @Override
     public int getItemCount() {
-        return reservations.size();
+        return differ.getList().size();
+    }
+    
+    @Override
+    public long getItemId(int position) {
+        return differ.getList().get(position).getId();
+    }
+    
+    // The row a view holder shows now, null if it is being removed
+    private ReservationRow rowAt(ViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        return position != RecyclerView.NO_POSITION ? differ.getList().get(position) : null;
+    }
+    
+    // Add or remove a reservation from the selection
+    private void toggleSelection(int reservationId, int position) {
+        if (!selectedIds.remove(reservationId)) {
+            selectedIds.add(reservationId);
+        }
+        if (position != RecyclerView.NO_POSITION) {
+            notifyItemChanged(position, PAYLOAD_SELECTION);
+        }
+        activity.onSelectionChanged(selectedIds.size());
+    }
+    
+    // Selected reservation IDs, in selection order
+    public List<Integer> getSelectedIds() {
+        return new ArrayList<>(selectedIds);
+    }
+    
+    // Clear the selection and redraw the rows that were selected
+    public void clearSelection() {
+        List<Integer> previouslySelected = new ArrayList<>(selectedIds);
+        selectedIds.clear();
+        List<ReservationRow> rows = differ.getList();
+        for (int i = 0; i < rows.size(); i++) {
+            if (previouslySelected.contains(rows.get(i).getId())) {
+                notifyItemChanged(i, PAYLOAD_SELECTION);
+            }
+        }
+        activity.onSelectionChanged(0);
+    }
+    
+    // Drop selected reservations that are gone from the list or no longer pending (decided elsewhere),
+    // their rows are redrawn by the diff since their status changed
+    private void retainPendingSelection(List<Reservation> reservations) {
+        if (selectedIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> pendingIds = new HashSet<>();
+        for (Reservation reservation : reservations) {
+            String status = reservation.getStatus();
+            if (status == null || status.isEmpty() || status.equals("pending")) {
+                pendingIds.add(reservation.getId());
+            }
+        }
+        if (selectedIds.retainAll(pendingIds)) {
+            activity.onSelectionChanged(selectedIds.size());
+        }
+    }
+    
+    // Replace reservations by ID with updated copies from the server, redrawing only those rows
+    public void applyUpdates(List<Reservation> updated) {
+        List<Reservation> reservations = new ArrayList<>(latest);
+        for (Reservation reservation : updated) {
+            for (int i = 0; i < reservations.size(); i++) {
+                if (reservations.get(i).getId() == reservation.getId()) {
+                    reservations.set(i, reservation);
+                    break;
+                }
+            }
+        }
+        // Updated rows are no longer pending, submitList drops them from the selection
+        submitList(reservations, null);
+    }
+    
+    // Same reservation apart from its status
+    private static boolean sameDetails(ReservationRow a, ReservationRow b) {
+        return TextUtils.equals(a.getCostumeText(), b.getCostumeText())
+                && TextUtils.equals(a.getUserText(), b.getUserText())
+                && TextUtils.equals(a.getDatesText(), b.getDatesText());
     }
     
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -1,7 +1,26 @@
 package com.costumerental.app.api;
 
+import android.content.Context;
+import android.util.Log;
+
+import com.costumerental.app.models.ApiError;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+
+import okhttp3.Cache;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
 import okhttp3.logging.HttpLoggingInterceptor;
+import retrofit2.Converter;
+import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
@@ -10,29 +29,144 @@ public class ApiClient {
     // Change this to your Laravel API URL
     private static final String BASE_URL = "http://10.0.2.2:8000/api/";
     
+    // Costume images stored by file name (e.g. "default.jpg") are served from here
+    private static final String IMAGE_BASE_URL = "http://10.0.2.2:8000/images/";
+    
+    // On-disk HTTP cache (ETag revalidation for the costume catalog)
+    private static final String CACHE_DIR_NAME = "http_cache";
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024; // 10 MB
+    
+    // Parallel image downloads, the API keeps OkHttp's default of 5 for itself
+    private static final int IMAGE_REQUESTS_PER_HOST = 4;
+    
+    // Single Gson instance shared by the converter and the streaming decoder,
+    // models are decoded by hand-written adapters instead of reflection
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+    
     private static Retrofit retrofit = null;
+    private static Cache cache = null;
+    private static Converter<ResponseBody, ApiError> errorConverter = null;
+    
+    // Set up the HTTP cache, must be called once before the first request (see CostumeRentalApp)
+    public static synchronized void init(Context context) {
+        if (cache == null) {
+            File cacheDir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR_NAME);
+            cache = new Cache(cacheDir, CACHE_SIZE_BYTES);
+        }
+    }
     
-    public static Retrofit getClient() {
+    public static synchronized Retrofit getClient() {
         if (retrofit == null) {
-            // Add logging interceptor for debugging
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
-            
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(logging)
-                    .build();
-            
-            retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .client(client)
-                    .build();
+            retrofit = createRetrofit(BASE_URL, cache);
         }
         return retrofit;
     }
     
+    // Build a Retrofit instance for any base URL and cache (lets a local MockWebServer stand in for Laravel)
+    public static Retrofit createRetrofit(String baseUrl, Cache cache) {
+        // Add logging interceptor for debugging (headers only, BODY would buffer every response in memory)
+        HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
+        logging.setLevel(HttpLoggingInterceptor.Level.HEADERS);
+        
+        // The cache stores the ETag sent by the server and adds If-None-Match on the next request,
+        // a 304 answer is then served from the cached body without downloading it again
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .addInterceptor(logging)
+                .eventListenerFactory(MetricsEventListener.FACTORY); // Per-phase timings, see NetworkMetrics
+        if (cache != null) {
+            builder.cache(cache);
+        }
+        
+        return new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .addConverterFactory(GsonConverterFactory.create(GSON))
+                .client(builder.build())
+                .build();
+    }
+    
+    // Drop cached responses (on logout, so the next user starts clean)
+    public static synchronized void clearCache() {
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.evictAll();
+        } catch (IOException e) {
+            Log.e("ApiClient", "Failed to clear HTTP cache: " + e.getMessage());
+        }
+    }
+    
+    // Decode the error body of a failed response into an ApiError (never null, the body is consumed).
+    // Goes through the Retrofit converter, so it uses the shared Gson and the hand-written ApiError adapter.
+    public static ApiError parseError(Response<?> response) {
+        ApiError error = null;
+        ResponseBody body = response.errorBody();
+        if (body != null) {
+            try {
+                error = getErrorConverter().convert(body);
+            } catch (IOException | RuntimeException e) {
+                Log.d("ApiClient", "Unreadable error body: " + e.getMessage());
+            } finally {
+                body.close();
+            }
+        }
+        if (error == null) {
+            error = new ApiError();
+        }
+        error.setCode(response.code());
+        return error;
+    }
+    
+    // True when a call failed without an answer that could be decoded: the server could not be reached, or the
+    // connection broke off before the whole answer was read (reset, unexpected end of stream, HTTP/2 stream reset,
+    // TLS failure, timeout). Sending the same request again later may work. False when an answer arrived but
+    // was not the JSON expected (MalformedJsonException, or a Gson runtime exception from the converter): sending
+    // it again would get the same answer.
+    public static boolean isConnectivityFailure(Throwable t) {
+        return t instanceof IOException && !(t instanceof MalformedJsonException);
+    }
+    
+    private static synchronized Converter<ResponseBody, ApiError> getErrorConverter() {
+        if (errorConverter == null) {
+            errorConverter = getClient().responseBodyConverter(ApiError.class, new Annotation[0]);
+        }
+        return errorConverter;
+    }
+    
+    // Push channel for reservation events, sharing the API client's connection pool and interceptors
+    public static EventStreamClient createEventStream(String token, String lastEventId, EventStreamClient.Listener listener) {
+        Retrofit client = getClient();
+        HttpUrl url = client.baseUrl().resolve("events");
+        return new EventStreamClient((OkHttpClient) client.callFactory(), url, token, lastEventId, listener);
+    }
+    
+    // Client for image downloads: shares the API client's connections, with its own cache and dispatcher
+    // so image traffic neither evicts cached API responses nor queues API calls behind it
+    public static OkHttpClient createImageClient(Cache imageCache, Interceptor networkInterceptor) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(IMAGE_REQUESTS_PER_HOST);
+        return ((OkHttpClient) getClient().callFactory()).newBuilder()
+                .cache(imageCache)
+                .dispatcher(dispatcher)
+                .addNetworkInterceptor(networkInterceptor)
+                .build();
+    }
+    
+    // Full URL of a costume image, null if there is none (absolute URLs are used as they are)
+    public static HttpUrl resolveImageUrl(String image) {
+        if (image == null || image.trim().isEmpty()) {
+            return null;
+        }
+        return HttpUrl.get(IMAGE_BASE_URL).resolve(image.trim());
+    }
+    
+    public static Gson getGson() {
+        return GSON;
+    }
+    
     public static ApiService getApiService() {
         return getClient().create(ApiService.class);
     }
 }
-
@@ -1,13 +1,16 @@
 package com.costumerental.app.api;
 
 import com.costumerental.app.models.ApiResponse;
+import com.costumerental.app.models.BatchResult;
 import com.costumerental.app.models.Costume;
+import com.costumerental.app.models.CostumeChanges;
 import com.costumerental.app.models.Reservation;
 import com.costumerental.app.models.User;
 
 import java.util.List;
 import java.util.Map;
 
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
@@ -15,10 +18,21 @@ import retrofit2.http.GET;
 import retrofit2.http.Header;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 // API service interface for Retrofit
 public interface ApiService {
     
+    // Response header carrying the server time to use as the next delta sync cursor
+    String HEADER_SYNC_CURSOR = "X-Sync-Cursor";
+    
+    // Response header of costume changes carrying the server's date (yyyy-MM-dd), cursors are in server time
+    String HEADER_SERVER_DATE = "X-Server-Date";
+    
+    // Request header making a write safe to replay, the server answers a repeated key with the first response
+    String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+    
     // Auth endpoints
     @POST("login")
     Call<ApiResponse<User>> login(@Body Map<String, String> credentials);
@@ -28,27 +42,43 @@ public interface ApiService {
     
     // Costume endpoints
     @GET("costumes")
-    Call<ApiResponse<List<Costume>>> getCostumes(@Header("Authorization") String token);
+    Call<ApiResponse<List<Costume>>> getCostumesPage(@Header("Authorization") String token, @Query("after_id") int afterId, @Query("limit") int limit);
+    
+    @GET("costumes/changes")
+    Call<ApiResponse<CostumeChanges>> getCostumeChanges(@Header("Authorization") String token, @Query("updated_since") String updatedSince);
     
     @POST("costumes")
-    Call<ApiResponse<Costume>> addCostume(@Header("Authorization") String token, @Body Map<String, Object> costumeData);
+    Call<ApiResponse<Costume>> addCostume(@Header("Authorization") String token, @Header(HEADER_IDEMPOTENCY_KEY) String idempotencyKey, @Body Map<String, Object> costumeData);
     
     @DELETE("costumes/{id}")
-    Call<ApiResponse<Void>> deleteCostume(@Header("Authorization") String token, @Path("id") int id);
+    Call<ApiResponse<Void>> deleteCostume(@Header("Authorization") String token, @Header(HEADER_IDEMPOTENCY_KEY) String idempotencyKey, @Path("id") int id);
     
     // Reservation endpoints
     @POST("reservations")
-    Call<ApiResponse<Reservation>> createReservation(@Header("Authorization") String token, @Body Map<String, Object> reservationData);
+    Call<ApiResponse<Reservation>> createReservation(@Header("Authorization") String token, @Header(HEADER_IDEMPOTENCY_KEY) String idempotencyKey, @Body Map<String, Object> reservationData);
     
     @GET("reservations/my")
     Call<ApiResponse<List<Reservation>>> getMyReservations(@Header("Authorization") String token);
     
+    // Only reservations changed since the cursor (null for all), next cursor in HEADER_SYNC_CURSOR
+    @GET("reservations/my")
+    Call<ApiResponse<List<Reservation>>> getMyReservationsSince(@Header("Authorization") String token, @Query("updated_since") String updatedSince);
+    
     @GET("reservations")
     Call<ApiResponse<List<Reservation>>> getAllReservations(@Header("Authorization") String token);
     
+    // Same endpoint as getAllReservations, left unparsed so JsonStreamDecoder can read it incrementally
+    @Streaming
+    @GET("reservations")
+    Call<ResponseBody> streamAllReservations(@Header("Authorization") String token);
+    
     @POST("reservations/{id}/approve")
     Call<ApiResponse<Reservation>> approveReservation(@Header("Authorization") String token, @Path("id") int id);
     
     @POST("reservations/{id}/reject")
     Call<ApiResponse<Reservation>> rejectReservation(@Header("Authorization") String token, @Path("id") int id);
+    
+    // Approve or reject many reservations in one round trip, body: {"ids": [...], "action": "approve"|"reject"}
+    @POST("reservations/batch")
+    Call<ApiResponse<BatchResult>> batchUpdateReservations(@Header("Authorization") String token, @Body Map<String, Object> batch);
 }
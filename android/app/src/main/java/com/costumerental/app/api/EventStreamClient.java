@@ -0,0 +1,218 @@
+package com.costumerental.app.api;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+// Server-Sent Events client for the /events push channel. Keeps one streaming request open on a
+// background thread, reconnects with exponential backoff, and resumes with Last-Event-ID so
+// no event is lost across reconnects. Plain OkHttp, so it runs against any local stand-in server.
+public class EventStreamClient {
+    
+    private static final String TAG = "EventStreamClient";
+    
+    // Event types sent by the server
+    public static final String EVENT_RESERVATION_CREATED = "reservation.created";
+    public static final String EVENT_STATUS_CHANGED = "reservation.status_changed";
+    
+    // Server heartbeats every 10 s, a silent stream for longer than this is considered dead
+    private static final long READ_TIMEOUT_SECONDS = 45;
+    
+    private static final long MIN_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60 * 1000;
+    
+    // Receives events on the stream thread
+    public interface Listener {
+        void onEvent(String id, String type, String data);
+    }
+    
+    private final OkHttpClient client;
+    private final HttpUrl url;
+    private final String token;
+    private final Listener listener;
+    private final Random random = new Random();
+    
+    private volatile boolean running;
+    private volatile String lastEventId;
+    private volatile Call currentCall;
+    private volatile Thread thread;
+    private long reconnectDelayMs;
+    
+    public EventStreamClient(OkHttpClient baseClient, HttpUrl url, String token, String lastEventId, Listener listener) {
+        // No call timeout: the stream is meant to stay open, only silence counts as a failure.
+        // No HTTP cache either, an event stream must never be stored or answered from it.
+        this.client = baseClient.newBuilder()
+                .cache(null)
+                .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .callTimeout(0, TimeUnit.SECONDS)
+                .build();
+        this.url = url;
+        this.token = token;
+        this.lastEventId = lastEventId;
+        this.listener = listener;
+    }
+    
+    // Open the stream (no-op if already running)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, TAG);
+        thread.start();
+    }
+    
+    // Close the stream and stop reconnecting
+    public synchronized void stop() {
+        running = false;
+        Call call = currentCall;
+        if (call != null) {
+            call.cancel();
+        }
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+    
+    // Id of the last event received, to resume from after a restart
+    public String getLastEventId() {
+        return lastEventId;
+    }
+    
+    private void runLoop() {
+        long backoffMs = MIN_BACKOFF_MS;
+        // A thread left over from before a stop() exits even if the client was started again
+        while (running && thread == Thread.currentThread()) {
+            reconnectDelayMs = -1;
+            boolean connected = false;
+            try {
+                connected = readStream();
+            } catch (IOException e) {
+                if (running) {
+                    Log.d(TAG, "Stream dropped: " + e.getMessage());
+                }
+            }
+            if (!running || thread != Thread.currentThread()) {
+                break;
+            }
+            
+            long delayMs;
+            if (connected) {
+                // Normal end of a connection: the server's retry hint, backoff starts over
+                backoffMs = MIN_BACKOFF_MS;
+                delayMs = reconnectDelayMs >= 0 ? reconnectDelayMs : MIN_BACKOFF_MS;
+            } else {
+                // Failed to connect: exponential backoff with jitter so clients don't reconnect in lockstep
+                delayMs = backoffMs / 2 + (long) (random.nextDouble() * backoffMs / 2);
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+    
+    // One connection: returns true if the stream was opened, false if the server refused it
+    private boolean readStream() throws IOException {
+        Request.Builder request = new Request.Builder()
+                .url(url)
+                .header("Authorization", token)
+                .header("Accept", "text/event-stream")
+                .header("Cache-Control", "no-cache");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        
+        Call call = client.newCall(request.build());
+        currentCall = call;
+        try (Response response = call.execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                if (response.code() == 401 || response.code() == 403) {
+                    running = false; // Token no longer valid, retrying won't help
+                }
+                Log.d(TAG, "Stream refused (Code: " + response.code() + ")");
+                return false;
+            }
+            
+            BufferedSource source = response.body().source();
+            String eventId = null;
+            String eventType = null;
+            StringBuilder data = new StringBuilder();
+            
+            String line;
+            while (running && (line = source.readUtf8Line()) != null) {
+                if (line.isEmpty()) {
+                    // Blank line ends an event
+                    if (data.length() > 0) {
+                        if (eventId != null) {
+                            lastEventId = eventId;
+                        }
+                        try {
+                            listener.onEvent(eventId, eventType != null ? eventType : "message", data.toString());
+                        } catch (RuntimeException e) {
+                            Log.e(TAG, "Failed to handle event " + eventId + ": " + e.getMessage());
+                        }
+                    }
+                    eventId = null;
+                    eventType = null;
+                    data.setLength(0);
+                    continue;
+                }
+                if (line.startsWith(":")) {
+                    continue; // Comment / heartbeat
+                }
+                
+                int colon = line.indexOf(':');
+                String field = colon >= 0 ? line.substring(0, colon) : line;
+                String value = colon >= 0 ? line.substring(colon + 1) : "";
+                if (value.startsWith(" ")) {
+                    value = value.substring(1);
+                }
+                
+                switch (field) {
+                    case "id":
+                        eventId = value;
+                        break;
+                    case "event":
+                        eventType = value;
+                        break;
+                    case "data":
+                        if (data.length() > 0) {
+                            data.append('\n');
+                        }
+                        data.append(value);
+                        break;
+                    case "retry":
+                        try {
+                            reconnectDelayMs = Long.parseLong(value);
+                        } catch (NumberFormatException e) {
+                            // Ignore malformed retry hints
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return true;
+        } finally {
+            currentCall = null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.costumerental.app.api;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.ResponseBody;
+
+// Streaming decoder for list endpoints: walks the "data" array of an API response with a JsonReader
+// and hands items to a consumer in fixed-size batches, so memory is bounded by the batch size
+// instead of the response size
+public class JsonStreamDecoder {
+    
+    // Receives decoded items, called on the thread running the decode
+    public interface BatchConsumer<T> {
+        void accept(List<T> batch);
+    }
+    
+    private JsonStreamDecoder() {
+    }
+    
+    // Decode the "data" array of body, returns the number of items read; the body is always closed
+    public static <T> int decodeDataArray(ResponseBody body, Gson gson, Class<T> type, int batchSize,
+                                          BatchConsumer<T> consumer) throws IOException {
+        TypeAdapter<T> adapter = gson.getAdapter(type);
+        int count = 0;
+        
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (!"data".equals(name) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+                
+                List<T> batch = new ArrayList<>(batchSize);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    batch.add(adapter.read(reader));
+                    count++;
+                    if (batch.size() >= batchSize) {
+                        consumer.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                reader.endArray();
+                if (!batch.isEmpty()) {
+                    consumer.accept(batch);
+                }
+            }
+            reader.endObject();
+        } finally {
+            body.close();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,176 @@
+package com.costumerental.app.api;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import retrofit2.Invocation;
+
+// OkHttp EventListener timing each phase of a call and reporting it to NetworkMetrics.
+// One instance per call (see FACTORY), so no synchronization is needed on the fields.
+public class MetricsEventListener extends EventListener {
+    
+    public static final EventListener.Factory FACTORY = new EventListener.Factory() {
+        @Override
+        public EventListener create(Call call) {
+            return new MetricsEventListener(endpointOf(call.request()));
+        }
+    };
+    
+    private final String endpoint;
+    private final NetworkMetrics metrics = NetworkMetrics.getInstance();
+    
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long tlsStart;
+    private long requestStart;
+    private long requestEnd;
+    private long bodyStart;
+    
+    private long bytesOut;
+    private long bytesIn;
+    private String cacheStatus;
+    
+    private MetricsEventListener(String endpoint) {
+        this.endpoint = endpoint;
+    }
+    
+    // Name calls after the ApiService method that made them, falling back to method + path
+    private static String endpointOf(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            return invocation.method().getName();
+        }
+        // Collapse IDs so /reservations/12/approve and /reservations/13/approve share a key
+        return request.method() + " " + request.url().encodedPath().replaceAll("/\\d+", "/{id}");
+    }
+    
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+    
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+    
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        record(NetworkMetrics.PHASE_DNS, dnsStart);
+    }
+    
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+    
+    @Override
+    public void secureConnectStart(Call call) {
+        tlsStart = System.nanoTime();
+    }
+    
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        record(NetworkMetrics.PHASE_TLS, tlsStart);
+    }
+    
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        record(NetworkMetrics.PHASE_CONNECT, connectStart);
+    }
+    
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+        record(NetworkMetrics.PHASE_CONNECT, connectStart);
+    }
+    
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+    }
+    
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        bytesOut += request.headers().byteCount();
+        requestEnd = System.nanoTime();
+    }
+    
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        bytesOut += byteCount;
+        requestEnd = System.nanoTime();
+    }
+    
+    @Override
+    public void responseHeadersStart(Call call) {
+        record(NetworkMetrics.PHASE_REQUEST, requestStart, requestEnd);
+        record(NetworkMetrics.PHASE_SERVER, requestEnd);
+    }
+    
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        bytesIn += response.headers().byteCount();
+    }
+    
+    @Override
+    public void responseBodyStart(Call call) {
+        bodyStart = System.nanoTime();
+    }
+    
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        bytesIn += byteCount;
+        record(NetworkMetrics.PHASE_BODY, bodyStart);
+    }
+    
+    @Override
+    public void cacheHit(Call call, Response response) {
+        // A 304 also ends in cacheHit, after cacheConditionalHit: it still went to the server, keep it a revalidation
+        if (!NetworkMetrics.CACHE_CONDITIONAL_HIT.equals(cacheStatus)) {
+            cacheStatus = NetworkMetrics.CACHE_HIT;
+        }
+    }
+    
+    @Override
+    public void cacheConditionalHit(Call call, Response cachedResponse) {
+        cacheStatus = NetworkMetrics.CACHE_CONDITIONAL_HIT;
+    }
+    
+    @Override
+    public void cacheMiss(Call call) {
+        cacheStatus = NetworkMetrics.CACHE_MISS;
+    }
+    
+    @Override
+    public void callEnd(Call call) {
+        record(NetworkMetrics.PHASE_TOTAL, callStart);
+        metrics.recordCall(endpoint, bytesOut, bytesIn, cacheStatus, false);
+    }
+    
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        record(NetworkMetrics.PHASE_TOTAL, callStart);
+        metrics.recordCall(endpoint, bytesOut, bytesIn, cacheStatus, true);
+    }
+    
+    private void record(String phase, long startNanos) {
+        record(phase, startNanos, System.nanoTime());
+    }
+    
+    private void record(String phase, long startNanos, long endNanos) {
+        if (startNanos == 0 || endNanos < startNanos) {
+            return; // Phase never started for this call
+        }
+        metrics.recordPhase(endpoint, phase, (endNanos - startNanos) / 1000000);
+    }
+}
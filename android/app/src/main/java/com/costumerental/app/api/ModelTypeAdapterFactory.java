@@ -0,0 +1,656 @@
+package com.costumerental.app.api;
+
+import com.costumerental.app.models.ApiError;
+import com.costumerental.app.models.ApiResponse;
+import com.costumerental.app.models.BatchResult;
+import com.costumerental.app.models.BookedRange;
+import com.costumerental.app.models.Costume;
+import com.costumerental.app.models.CostumeChanges;
+import com.costumerental.app.models.Reservation;
+import com.costumerental.app.models.User;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hand-written streaming TypeAdapters for the API models, so Gson never falls back to
+// ReflectiveTypeAdapterFactory (slow first use and extra allocations on ART).
+// Unknown fields (created_at, updated_at, ...) are skipped without being materialized.
+// Other types (lists, strings, numbers) are left to Gson's built-in adapters, which do not use reflection.
+public class ModelTypeAdapterFactory implements TypeAdapterFactory {
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == Costume.class) {
+            return (TypeAdapter<T>) new CostumeAdapter();
+        }
+        if (rawType == User.class) {
+            return (TypeAdapter<T>) new UserAdapter();
+        }
+        if (rawType == Reservation.class) {
+            return (TypeAdapter<T>) new ReservationAdapter(gson.getAdapter(Costume.class), gson.getAdapter(User.class));
+        }
+        if (rawType == CostumeChanges.class) {
+            return (TypeAdapter<T>) new CostumeChangesAdapter(
+                    (TypeAdapter<List<Costume>>) gson.getAdapter(TypeToken.getParameterized(List.class, Costume.class)),
+                    (TypeAdapter<List<Integer>>) gson.getAdapter(TypeToken.getParameterized(List.class, Integer.class)));
+        }
+        if (rawType == BatchResult.class) {
+            return (TypeAdapter<T>) new BatchResultAdapter(
+                    (TypeAdapter<List<Reservation>>) gson.getAdapter(TypeToken.getParameterized(List.class, Reservation.class)));
+        }
+        if (rawType == ApiError.class) {
+            return (TypeAdapter<T>) new ApiErrorAdapter();
+        }
+        if (rawType == Void.class) {
+            return (TypeAdapter<T>) new VoidAdapter();
+        }
+        if (rawType == ApiResponse.class) {
+            // ApiResponse<T>: resolve the adapter for T (Object when the type is raw)
+            Type dataType = Object.class;
+            if (type.getType() instanceof ParameterizedType) {
+                dataType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+            }
+            return (TypeAdapter<T>) createApiResponseAdapter(gson, dataType);
+        }
+        return null;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <D> TypeAdapter<ApiResponse<D>> createApiResponseAdapter(Gson gson, Type dataType) {
+        TypeAdapter<D> dataAdapter = (TypeAdapter<D>) gson.getAdapter(TypeToken.get(dataType));
+        TypeAdapter<List<D>> listAdapter = (TypeAdapter<List<D>>) gson.getAdapter(TypeToken.getParameterized(List.class, dataType));
+        return new ApiResponseAdapter<>(dataAdapter, listAdapter, gson.getAdapter(User.class));
+    }
+    
+    // Costume
+    private static class CostumeAdapter extends TypeAdapter<Costume> {
+        @Override
+        public void write(JsonWriter out, Costume costume) throws IOException {
+            if (costume == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(costume.getId());
+            out.name("name").value(costume.getName());
+            out.name("size").value(costume.getSize());
+            out.name("price").value(costume.getPrice());
+            out.name("image").value(costume.getImage());
+            out.name("is_available").value(costume.isIs_available());
+            out.name("next_available_date").value(costume.getNext_available_date());
+            if (costume.getBooked_ranges() != null) {
+                out.name("booked_ranges").beginArray();
+                for (BookedRange range : costume.getBooked_ranges()) {
+                    out.beginObject();
+                    out.name("start_date").value(range.getStart_date());
+                    out.name("end_date").value(range.getEnd_date());
+                    out.endObject();
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+        
+        @Override
+        public Costume read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            Costume costume = new Costume();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        costume.setId(nextInt(in));
+                        break;
+                    case "name":
+                        costume.setName(nextString(in));
+                        break;
+                    case "size":
+                        costume.setSize(nextString(in));
+                        break;
+                    case "price":
+                        costume.setPrice(nextDouble(in)); // Laravel sends decimals as strings, nextDouble accepts both
+                        break;
+                    case "image":
+                        costume.setImage(nextString(in));
+                        break;
+                    case "is_available":
+                        costume.setIs_available(nextBoolean(in));
+                        break;
+                    case "next_available_date":
+                        costume.setNext_available_date(nextString(in));
+                        break;
+                    case "booked_ranges":
+                        costume.setBooked_ranges(readBookedRanges(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return costume;
+        }
+        
+        private static List<BookedRange> readBookedRanges(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            List<BookedRange> ranges = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                BookedRange range = new BookedRange();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "start_date":
+                            range.setStart_date(nextString(in));
+                            break;
+                        case "end_date":
+                            range.setEnd_date(nextString(in));
+                            break;
+                        default:
+                            in.skipValue();
+                            break;
+                    }
+                }
+                in.endObject();
+                ranges.add(range);
+            }
+            in.endArray();
+            return ranges;
+        }
+    }
+    
+    // User
+    private static class UserAdapter extends TypeAdapter<User> {
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            if (user == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(user.getId());
+            out.name("name").value(user.getName());
+            out.name("email").value(user.getEmail());
+            out.name("role").value(user.getRole());
+            out.endObject();
+        }
+        
+        @Override
+        public User read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            User user = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        user.setId(nextInt(in));
+                        break;
+                    case "name":
+                        user.setName(nextString(in));
+                        break;
+                    case "email":
+                        user.setEmail(nextString(in));
+                        break;
+                    case "role":
+                        user.setRole(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    }
+    
+    // Reservation (dates are parsed to epoch days by the setters while decoding)
+    private static class ReservationAdapter extends TypeAdapter<Reservation> {
+        private final TypeAdapter<Costume> costumeAdapter;
+        private final TypeAdapter<User> userAdapter;
+        
+        ReservationAdapter(TypeAdapter<Costume> costumeAdapter, TypeAdapter<User> userAdapter) {
+            this.costumeAdapter = costumeAdapter;
+            this.userAdapter = userAdapter;
+        }
+        
+        @Override
+        public void write(JsonWriter out, Reservation reservation) throws IOException {
+            if (reservation == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(reservation.getId());
+            out.name("costume_id").value(reservation.getCostume_id());
+            out.name("user_id").value(reservation.getUser_id());
+            out.name("start_date").value(reservation.getStart_date());
+            out.name("end_date").value(reservation.getEnd_date());
+            out.name("status").value(reservation.getStatus());
+            out.name("costume");
+            costumeAdapter.write(out, reservation.getCostume());
+            out.name("user");
+            userAdapter.write(out, reservation.getUser());
+            out.endObject();
+        }
+        
+        @Override
+        public Reservation read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            Reservation reservation = new Reservation();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":
+                        reservation.setId(nextInt(in));
+                        break;
+                    case "costume_id":
+                        reservation.setCostume_id(nextInt(in));
+                        break;
+                    case "user_id":
+                        reservation.setUser_id(nextInt(in));
+                        break;
+                    case "start_date":
+                        reservation.setStart_date(nextString(in));
+                        break;
+                    case "end_date":
+                        reservation.setEnd_date(nextString(in));
+                        break;
+                    case "status":
+                        reservation.setStatus(nextString(in));
+                        break;
+                    case "costume":
+                        reservation.setCostume(costumeAdapter.read(in));
+                        break;
+                    case "user":
+                        reservation.setUser(userAdapter.read(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return reservation;
+        }
+    }
+    
+    // Delta sync: {"costumes": [...], "deleted_ids": [...], "cursor": "..."}
+    private static class CostumeChangesAdapter extends TypeAdapter<CostumeChanges> {
+        private final TypeAdapter<List<Costume>> costumesAdapter;
+        private final TypeAdapter<List<Integer>> idsAdapter;
+        
+        CostumeChangesAdapter(TypeAdapter<List<Costume>> costumesAdapter, TypeAdapter<List<Integer>> idsAdapter) {
+            this.costumesAdapter = costumesAdapter;
+            this.idsAdapter = idsAdapter;
+        }
+        
+        @Override
+        public void write(JsonWriter out, CostumeChanges changes) throws IOException {
+            if (changes == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("costumes");
+            costumesAdapter.write(out, changes.getCostumes());
+            out.name("deleted_ids");
+            idsAdapter.write(out, changes.getDeleted_ids());
+            out.name("cursor").value(changes.getCursor());
+            out.endObject();
+        }
+        
+        @Override
+        public CostumeChanges read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CostumeChanges changes = new CostumeChanges();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "costumes":
+                        changes.setCostumes(costumesAdapter.read(in));
+                        break;
+                    case "deleted_ids":
+                        changes.setDeleted_ids(idsAdapter.read(in));
+                        break;
+                    case "cursor":
+                        changes.setCursor(nextString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return changes;
+        }
+    }
+    
+    // Batch approve/reject: {"updated": [...], "failed": [{"id": 1, "message": "..."}, ...]}
+    private static class BatchResultAdapter extends TypeAdapter<BatchResult> {
+        private final TypeAdapter<List<Reservation>> reservationsAdapter;
+        
+        BatchResultAdapter(TypeAdapter<List<Reservation>> reservationsAdapter) {
+            this.reservationsAdapter = reservationsAdapter;
+        }
+        
+        @Override
+        public void write(JsonWriter out, BatchResult result) throws IOException {
+            if (result == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("updated");
+            reservationsAdapter.write(out, result.getUpdated());
+            if (result.getFailed() != null) {
+                out.name("failed").beginArray();
+                for (BatchResult.Failure failure : result.getFailed()) {
+                    out.beginObject();
+                    out.name("id").value(failure.getId());
+                    out.name("message").value(failure.getMessage());
+                    out.endObject();
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+        
+        @Override
+        public BatchResult read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            BatchResult result = new BatchResult();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "updated":
+                        result.setUpdated(reservationsAdapter.read(in));
+                        break;
+                    case "failed":
+                        result.setFailed(readFailures(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return result;
+        }
+        
+        private static List<BatchResult.Failure> readFailures(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            List<BatchResult.Failure> failures = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                BatchResult.Failure failure = new BatchResult.Failure();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "id":
+                            failure.setId(nextInt(in));
+                            break;
+                        case "message":
+                            failure.setMessage(nextString(in));
+                            break;
+                        default:
+                            in.skipValue();
+                            break;
+                    }
+                }
+                in.endObject();
+                failures.add(failure);
+            }
+            in.endArray();
+            return failures;
+        }
+    }
+    
+    // ApiResponse<Void> (delete): whatever "data" holds is skipped
+    private static class VoidAdapter extends TypeAdapter<Void> {
+        @Override
+        public void write(JsonWriter out, Void value) throws IOException {
+            out.nullValue();
+        }
+        
+        @Override
+        public Void read(JsonReader in) throws IOException {
+            in.skipValue();
+            return null;
+        }
+    }
+    
+    // ApiResponse<T> wrapper
+    private static class ApiResponseAdapter<D> extends TypeAdapter<ApiResponse<D>> {
+        private final TypeAdapter<D> dataAdapter;
+        private final TypeAdapter<List<D>> listAdapter;
+        private final TypeAdapter<User> userAdapter;
+        
+        ApiResponseAdapter(TypeAdapter<D> dataAdapter, TypeAdapter<List<D>> listAdapter, TypeAdapter<User> userAdapter) {
+            this.dataAdapter = dataAdapter;
+            this.listAdapter = listAdapter;
+            this.userAdapter = userAdapter;
+        }
+        
+        @Override
+        public void write(JsonWriter out, ApiResponse<D> response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("success").value(response.isSuccess());
+            out.name("message").value(response.getMessage());
+            out.name("data");
+            dataAdapter.write(out, response.getData());
+            out.name("token").value(response.getToken());
+            out.name("user");
+            userAdapter.write(out, response.getUser());
+            out.name("next_cursor").value(response.getNext_cursor());
+            out.endObject();
+        }
+        
+        @Override
+        public ApiResponse<D> read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            ApiResponse<D> response = new ApiResponse<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "success":
+                        response.setSuccess(nextBoolean(in));
+                        break;
+                    case "message":
+                        response.setMessage(nextString(in));
+                        break;
+                    case "data":
+                        response.setData(dataAdapter.read(in));
+                        break;
+                    case "token":
+                        response.setToken(nextString(in));
+                        break;
+                    case "user":
+                        response.setUser(userAdapter.read(in));
+                        break;
+                    case "dataList":
+                        response.setDataList(listAdapter.read(in));
+                        break;
+                    case "next_cursor":
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                        } else {
+                            response.setNext_cursor(in.nextInt());
+                        }
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
+    
+    // Error body: {"message": "...", "errors": {"field": ["...", ...]}}, the HTTP code is set by ApiClient.parseError
+    private static class ApiErrorAdapter extends TypeAdapter<ApiError> {
+        @Override
+        public void write(JsonWriter out, ApiError error) throws IOException {
+            if (error == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("message").value(error.getMessage());
+            if (error.getErrors() != null) {
+                out.name("errors").beginObject();
+                for (Map.Entry<String, List<String>> field : error.getErrors().entrySet()) {
+                    out.name(field.getKey()).beginArray();
+                    for (String message : field.getValue()) {
+                        out.value(message);
+                    }
+                    out.endArray();
+                }
+                out.endObject();
+            }
+            out.endObject();
+        }
+        
+        @Override
+        public ApiError read(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue(); // Not a JSON object (HTML error page, plain text...)
+                return null;
+            }
+            ApiError error = new ApiError();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "message":
+                        error.setMessage(nextString(in));
+                        break;
+                    case "errors":
+                        error.setErrors(readFieldErrors(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return error;
+        }
+        
+        // Field -> messages, a single string per field is accepted too
+        private Map<String, List<String>> readFieldErrors(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                return null;
+            }
+            Map<String, List<String>> errors = new LinkedHashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                List<String> messages = new ArrayList<>();
+                if (in.peek() == JsonToken.BEGIN_ARRAY) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        String message = nextString(in);
+                        if (message != null) {
+                            messages.add(message);
+                        }
+                    }
+                    in.endArray();
+                } else {
+                    String message = nextString(in);
+                    if (message != null) {
+                        messages.add(message);
+                    }
+                }
+                errors.put(field, messages);
+            }
+            in.endObject();
+            return errors;
+        }
+    }
+    
+    // Null-tolerant readers matching what the reflective adapters used to accept
+    
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+    
+    private static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+    
+    private static double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextDouble();
+    }
+    
+    private static boolean nextBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return false;
+        }
+        if (token == JsonToken.NUMBER) {
+            return in.nextInt() != 0; // MySQL tinyint
+        }
+        if (token == JsonToken.STRING) {
+            String value = in.nextString();
+            return "1".equals(value) || "true".equalsIgnoreCase(value);
+        }
+        return in.nextBoolean();
+    }
+}
@@ -0,0 +1,201 @@
+package com.costumerental.app.api;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// In-memory network metrics, filled by MetricsEventListener for every call made through ApiClient.
+// Each endpoint keeps one fixed-bucket latency histogram per phase, so memory stays constant
+// no matter how many calls are made, plus byte counts and HTTP cache outcomes.
+public class NetworkMetrics {
+    
+    // Call phases, in the order they happen
+    public static final String PHASE_DNS = "dns";
+    public static final String PHASE_CONNECT = "connect";
+    public static final String PHASE_TLS = "tls";
+    public static final String PHASE_REQUEST = "request";
+    public static final String PHASE_SERVER = "server"; // request sent -> first response header byte
+    public static final String PHASE_BODY = "body";
+    public static final String PHASE_TOTAL = "total";
+    
+    private static final String[] PHASES = {
+            PHASE_DNS, PHASE_CONNECT, PHASE_TLS, PHASE_REQUEST, PHASE_SERVER, PHASE_BODY, PHASE_TOTAL
+    };
+    
+    // How the HTTP cache answered a call
+    public static final String CACHE_HIT = "hit";
+    public static final String CACHE_CONDITIONAL_HIT = "conditional_hit"; // 304 revalidation
+    public static final String CACHE_MISS = "miss";
+    
+    private static NetworkMetrics instance;
+    
+    private final Map<String, EndpointStats> endpoints = new TreeMap<>();
+    
+    public static synchronized NetworkMetrics getInstance() {
+        if (instance == null) {
+            instance = new NetworkMetrics();
+        }
+        return instance;
+    }
+    
+    // Fixed-bucket latency histogram (milliseconds), percentiles are reported as bucket upper bounds
+    private static class Histogram {
+        private static final long[] BOUNDS_MS = {
+                1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000
+        };
+        
+        private final long[] counts = new long[BOUNDS_MS.length + 1]; // last bucket is overflow
+        private long count;
+        private long sumMs;
+        private long maxMs;
+        
+        void record(long ms) {
+            int bucket = 0;
+            while (bucket < BOUNDS_MS.length && ms > BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            sumMs += ms;
+            maxMs = Math.max(maxMs, ms);
+        }
+        
+        // Upper bound of the bucket holding the given percentile (0-100), 0 when empty
+        public long getPercentileMs(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // Never report more than was actually observed
+                    return i < BOUNDS_MS.length ? Math.min(BOUNDS_MS[i], maxMs) : maxMs;
+                }
+            }
+            return maxMs;
+        }
+    }
+    
+    // Everything recorded for one endpoint
+    private static class EndpointStats {
+        private final Map<String, Histogram> phases = new TreeMap<>();
+        private long calls;
+        private long failures;
+        private long bytesOut;
+        private long bytesIn;
+        private long cacheHits;
+        private long cacheConditionalHits;
+        private long cacheMisses;
+        
+        Histogram getPhase(String phase) {
+            Histogram histogram = phases.get(phase);
+            if (histogram == null) {
+                histogram = new Histogram();
+                phases.put(phase, histogram);
+            }
+            return histogram;
+        }
+    }
+    
+    // Called by MetricsEventListener when a phase finishes
+    synchronized void recordPhase(String endpoint, String phase, long ms) {
+        getOrCreate(endpoint).getPhase(phase).record(ms);
+    }
+    
+    // Called by MetricsEventListener once per call
+    synchronized void recordCall(String endpoint, long bytesOut, long bytesIn, String cacheStatus, boolean failed) {
+        EndpointStats stats = getOrCreate(endpoint);
+        stats.calls++;
+        if (failed) {
+            stats.failures++;
+        }
+        stats.bytesOut += bytesOut;
+        stats.bytesIn += bytesIn;
+        if (CACHE_HIT.equals(cacheStatus)) {
+            stats.cacheHits++;
+        } else if (CACHE_CONDITIONAL_HIT.equals(cacheStatus)) {
+            stats.cacheConditionalHits++;
+        } else if (CACHE_MISS.equals(cacheStatus)) {
+            stats.cacheMisses++;
+        }
+    }
+    
+    // Endpoints seen so far (ApiService method names)
+    public synchronized List<String> getEndpoints() {
+        return new ArrayList<>(endpoints.keySet());
+    }
+    
+    // Percentile of one phase of one endpoint in milliseconds, 0 when nothing was recorded
+    public synchronized long getPercentileMs(String endpoint, String phase, double percentile) {
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats == null || !stats.phases.containsKey(phase)) {
+            return 0;
+        }
+        return stats.phases.get(phase).getPercentileMs(percentile);
+    }
+    
+    // Human-readable summary of every endpoint
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        if (endpoints.isEmpty()) {
+            return "No network calls recorded yet\n";
+        }
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            EndpointStats stats = entry.getValue();
+            report.append(entry.getKey())
+                    .append(": ").append(stats.calls).append(" calls, ")
+                    .append(stats.failures).append(" failed, ")
+                    .append(stats.bytesOut).append(" B out, ")
+                    .append(stats.bytesIn).append(" B in, cache ")
+                    .append(stats.cacheHits).append(" hit / ")
+                    .append(stats.cacheConditionalHits).append(" revalidated / ")
+                    .append(stats.cacheMisses).append(" miss\n");
+            for (String phase : PHASES) {
+                Histogram histogram = stats.phases.get(phase);
+                if (histogram == null || histogram.count == 0) {
+                    continue;
+                }
+                report.append(String.format(Locale.US, "  %-8s n=%d mean=%dms p50=%dms p95=%dms p99=%dms max=%dms%n",
+                        phase, histogram.count, histogram.sumMs / histogram.count,
+                        histogram.getPercentileMs(50), histogram.getPercentileMs(95),
+                        histogram.getPercentileMs(99), histogram.maxMs));
+            }
+        }
+        return report.toString();
+    }
+    
+    // Append the current report to file with a timestamp, so runs of different builds can be compared
+    public void dumpToFile(File file) throws IOException {
+        String header = "=== " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US).format(new Date()) + " ===\n";
+        String report = getReport();
+        try (Writer writer = new FileWriter(file, true)) {
+            writer.write(header);
+            writer.write(report);
+            writer.write("\n");
+        }
+    }
+    
+    // Forget everything recorded so far
+    public synchronized void reset() {
+        endpoints.clear();
+    }
+    
+    private EndpointStats getOrCreate(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats == null) {
+            stats = new EndpointStats();
+            endpoints.put(endpoint, stats);
+        }
+        return stats;
+    }
+}
@@ -3,22 +3,43 @@ package com.costumerental.app.database;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
+import android.text.TextUtils;
 
+import com.costumerental.app.models.BookedRange;
 import com.costumerental.app.models.Costume;
+import com.costumerental.app.models.OutboxEntry;
+import com.costumerental.app.models.Reservation;
+import com.costumerental.app.models.User;
+import com.costumerental.app.utils.AvailabilityIndex;
+import com.costumerental.app.utils.DateUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 // SQLite database helper for offline storage
 public class DatabaseHelper extends SQLiteOpenHelper {
     
     private static final String DATABASE_NAME = "costume_rental.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 8;
     
-    // Table name
+    // Table names
     private static final String TABLE_COSTUMES = "costumes";
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    private static final String TABLE_OUTBOX = "outbox";
+    private static final String TABLE_RESERVATIONS = "reservations";
+    private static final String TABLE_USERS = "users";
+    private static final String TABLE_COSTUMES_FTS = "costumes_fts"; // full-text index over costume name and size
+    private static final String TABLE_BOOKED_RANGES = "booked_ranges"; // approved bookings of each costume
     
     // Column names
     private static final String COL_ID = "id";
@@ -26,9 +47,102 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COL_SIZE = "size";
     private static final String COL_PRICE = "price";
     private static final String COL_IMAGE = "image";
+    private static final String COL_IS_AVAILABLE = "is_available";
+    private static final String COL_NEXT_AVAILABLE_DATE = "next_available_date";
     
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // Sync state columns
+    private static final String COL_SYNC_KEY = "sync_key";
+    private static final String COL_SYNC_VALUE = "sync_value";
+    
+    // Outbox columns
+    private static final String COL_OUTBOX_ID = "id";
+    private static final String COL_IDEMPOTENCY_KEY = "idempotency_key";
+    private static final String COL_OPERATION = "operation";
+    private static final String COL_TARGET_ID = "target_id";
+    private static final String COL_PAYLOAD = "payload";
+    private static final String COL_AUTH_TOKEN = "auth_token";
+    private static final String COL_DESCRIPTION = "description";
+    private static final String COL_STATUS = "status";
+    private static final String COL_ATTEMPTS = "attempts";
+    private static final String COL_LAST_ERROR = "last_error";
+    private static final String COL_CREATED_AT = "created_at";
+    
+    // Reservation columns (the client's own reservations, or every reservation for an admin);
+    // costume and user are references to the costumes and users tables
+    private static final String COL_RES_ID = "id";
+    private static final String COL_RES_COSTUME_ID = "costume_id";
+    private static final String COL_RES_USER_ID = "user_id";
+    private static final String COL_RES_START_DATE = "start_date";
+    private static final String COL_RES_END_DATE = "end_date";
+    private static final String COL_RES_START_DAY = "start_day"; // epoch day, see DateUtils
+    private static final String COL_RES_END_DAY = "end_day"; // epoch day, see DateUtils
+    private static final String COL_RES_STATUS = "status";
+    private static final String COL_RES_NOTIFIED_DAY = "deadline_notified_day";
+    private static final String COL_RES_COSTUME_NAME = "costume_name"; // as sent with the reservation, the costume may be deleted
+    
+    // Booked range columns, days are epoch days (see DateUtils) and both are included
+    private static final String COL_RANGE_COSTUME_ID = "costume_id";
+    private static final String COL_RANGE_START_DAY = "start_day";
+    private static final String COL_RANGE_END_DAY = "end_day";
+    
+    // User columns (people seen in reservations)
+    private static final String COL_USER_ID = "id";
+    private static final String COL_USER_NAME = "name";
+    private static final String COL_USER_EMAIL = "email";
+    
+    // Reservations with their costume and user names resolved
+    private static final String SQL_SELECT_RESERVATIONS = "SELECT r.*, u." + COL_USER_NAME + " AS user_name FROM " +
+            TABLE_RESERVATIONS + " r LEFT JOIN " + TABLE_USERS + " u ON u." + COL_USER_ID + " = r." + COL_RES_USER_ID;
+    
+    // Hot write statements, fixed SQL so every compile is a hit in the connection's statement cache
+    private static final String SQL_UPSERT_COSTUME = "INSERT OR REPLACE INTO " + TABLE_COSTUMES + " (" +
+            COL_ID + ", " + COL_NAME + ", " + COL_SIZE + ", " + COL_PRICE + ", " + COL_IMAGE + ", " +
+            COL_IS_AVAILABLE + ", " + COL_NEXT_AVAILABLE_DATE + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_DELETE_COSTUME = "DELETE FROM " + TABLE_COSTUMES + " WHERE " + COL_ID + " = ?";
+    private static final String SQL_INSERT_BOOKED_RANGE = "INSERT OR IGNORE INTO " + TABLE_BOOKED_RANGES + " (" +
+            COL_RANGE_COSTUME_ID + ", " + COL_RANGE_START_DAY + ", " + COL_RANGE_END_DAY + ") VALUES (?, ?, ?)";
+    private static final String SQL_DELETE_BOOKED_RANGES = "DELETE FROM " + TABLE_BOOKED_RANGES +
+            " WHERE " + COL_RANGE_COSTUME_ID + " = ?";
+    
+    // Sync cursor keys
+    public static final String SYNC_KEY_COSTUMES = "costumes";
+    public static final String SYNC_KEY_MY_RESERVATIONS = "my_reservations";
+    
+    // Statements compiled once per connection and reused while their SQL stays in this cache
+    private static final int SQL_CACHE_SIZE = 50;
+    
+    // Page cache of the primary (write) connection, negative values are KiB (here 4 MB) instead of pages.
+    // A PRAGMA only reaches the connection it runs on: the reader connections the pool opens in WAL mode
+    // keep SQLite's default (2 MB), which is enough for the windowed catalog reads.
+    private static final int PAGE_CACHE_KIB = 4096;
+    
+    private static DatabaseHelper instance;
+    
+    private DatabaseHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+    
+    // Helper on a database file of its own, for tests
+    DatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        // Readers get their own connections and no longer wait for a writer to finish
+        setWriteAheadLoggingEnabled(true);
+    }
+    
+    // One helper and one open database for the whole process, never closed
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context.getApplicationContext());
+        }
+        return instance;
+    }
+    
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.setMaxSqlCacheSize(SQL_CACHE_SIZE);
+        // Runs on the primary connection only, unlike the statement cache size which applies to every connection
+        db.execSQL("PRAGMA cache_size = -" + PAGE_CACHE_KIB);
     }
     
     @Override
@@ -39,68 +153,757 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COL_NAME + " TEXT, " +
                 COL_SIZE + " TEXT, " +
                 COL_PRICE + " REAL, " +
-                COL_IMAGE + " TEXT)";
+                COL_IMAGE + " TEXT, " +
+                COL_IS_AVAILABLE + " INTEGER DEFAULT 1, " +
+                COL_NEXT_AVAILABLE_DATE + " TEXT)";
         db.execSQL(createTable);
+        createCostumeSearchIndex(db);
+        createBookedRangesTable(db);
+        
+        // Create sync state table (delta sync cursors)
+        String createSyncState = "CREATE TABLE " + TABLE_SYNC_STATE + " (" +
+                COL_SYNC_KEY + " TEXT PRIMARY KEY, " +
+                COL_SYNC_VALUE + " TEXT)";
+        db.execSQL(createSyncState);
+        
+        createOutboxTable(db);
+        createReservationTables(db);
     }
     
+    // Upgrades run one version at a time, inside the transaction SQLiteOpenHelper opens for onUpgrade,
+    // so an app update keeps the stored catalog, reservations, outbox and sync cursors.
+    // A schema change bumps DATABASE_VERSION, changes onCreate and adds its step here. Each step's SQL is
+    // written out as it was for that version, not built from onCreate's helpers or the name constants,
+    // so a later change to the current schema cannot change what an old step does; earlier steps are never edited.
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_COSTUMES);
-        onCreate(db);
+        for (int version = oldVersion + 1; version <= newVersion; version++) {
+            migrateTo(db, version);
+        }
     }
     
-    // Save costume to local database
-    public void saveCostume(Costume costume) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_ID, costume.getId());
-        values.put(COL_NAME, costume.getName());
-        values.put(COL_SIZE, costume.getSize());
-        values.put(COL_PRICE, costume.getPrice());
-        values.put(COL_IMAGE, costume.getImage());
+    // Bring the schema from version - 1 to version
+    private void migrateTo(SQLiteDatabase db, int version) {
+        switch (version) {
+            case 2:
+                // Availability columns and delta sync cursors; stored costumes count as available until the next sync
+                db.execSQL("ALTER TABLE costumes ADD COLUMN is_available INTEGER DEFAULT 1");
+                db.execSQL("ALTER TABLE costumes ADD COLUMN next_available_date TEXT");
+                db.execSQL("CREATE TABLE sync_state (sync_key TEXT PRIMARY KEY, sync_value TEXT)");
+                break;
+            case 3:
+                // Offline writes
+                db.execSQL("CREATE TABLE outbox (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "idempotency_key TEXT NOT NULL UNIQUE, " +
+                        "operation TEXT NOT NULL, " +
+                        "target_id INTEGER, " +
+                        "payload TEXT, " +
+                        "auth_token TEXT, " +
+                        "description TEXT, " +
+                        "status TEXT NOT NULL DEFAULT 'pending', " +
+                        "attempts INTEGER NOT NULL DEFAULT 0, " +
+                        "last_error TEXT, " +
+                        "created_at INTEGER)");
+                break;
+            case 4:
+                // Version 4's reservations table is replaced by version 5, upgrades past it skip creating it
+                break;
+            case 5:
+                // Version 4 kept the client's reservations without their user, they cannot be moved to the
+                // normalized tables; the next sync fills them again from the start
+                db.execSQL("DROP TABLE IF EXISTS reservations");
+                db.execSQL("DELETE FROM sync_state WHERE sync_key = 'my_reservations'");
+                db.execSQL("CREATE TABLE users (id INTEGER PRIMARY KEY, name TEXT, email TEXT)");
+                db.execSQL("CREATE TABLE reservations (" +
+                        "id INTEGER PRIMARY KEY, " +
+                        "costume_id INTEGER NOT NULL, " +
+                        "user_id INTEGER NOT NULL, " +
+                        "start_date TEXT, " +
+                        "end_date TEXT, " +
+                        "start_day INTEGER, " +
+                        "end_day INTEGER, " +
+                        "status TEXT, " +
+                        "deadline_notified_day INTEGER)");
+                db.execSQL("CREATE INDEX idx_reservations_costume_status_end ON reservations (costume_id, status, end_day)");
+                db.execSQL("CREATE INDEX idx_reservations_user ON reservations (user_id)");
+                db.execSQL("CREATE INDEX idx_reservations_status_end_day ON reservations (status, end_day)");
+                break;
+            case 6:
+                // Costume search index and the triggers keeping it in step, then index the costumes already stored
+                db.execSQL("CREATE VIRTUAL TABLE costumes_fts USING fts4(name, size, prefix=\"1,2,3\", tokenize=unicode61)");
+                db.execSQL("CREATE TRIGGER costumes_fts_insert AFTER INSERT ON costumes BEGIN " +
+                        "INSERT OR REPLACE INTO costumes_fts (docid, name, size) VALUES (new.id, new.name, new.size); END");
+                db.execSQL("CREATE TRIGGER costumes_fts_update AFTER UPDATE OF name, size ON costumes BEGIN " +
+                        "INSERT OR REPLACE INTO costumes_fts (docid, name, size) VALUES (new.id, new.name, new.size); END");
+                db.execSQL("CREATE TRIGGER costumes_fts_delete AFTER DELETE ON costumes BEGIN " +
+                        "DELETE FROM costumes_fts WHERE docid = old.id; END");
+                db.execSQL("INSERT INTO costumes_fts (docid, name, size) SELECT id, name, size FROM costumes");
+                break;
+            case 7:
+                // Stored costumes keep showing offline; dropping the cursor makes the next online load page
+                // through the catalog once, which fills in their booked ranges
+                db.execSQL("CREATE TABLE booked_ranges (" +
+                        "costume_id INTEGER NOT NULL, " +
+                        "start_day INTEGER NOT NULL, " +
+                        "end_day INTEGER NOT NULL, " +
+                        "PRIMARY KEY (costume_id, start_day, end_day)) WITHOUT ROWID");
+                db.execSQL("DELETE FROM sync_state WHERE sync_key = 'costumes'");
+                break;
+            case 8:
+                // Reservations keep their costume's name instead of adding the costume to the catalog, where a
+                // deleted costume showed up as available. The name comes from the catalog for the ones stored;
+                // dropping the cursor makes the next online load page through the catalog, which removes the
+                // costumes reservation syncs added.
+                db.execSQL("ALTER TABLE reservations ADD COLUMN costume_name TEXT");
+                db.execSQL("UPDATE reservations SET costume_name = (SELECT name FROM costumes WHERE costumes.id = reservations.costume_id)");
+                db.execSQL("DELETE FROM sync_state WHERE sync_key = 'costumes'");
+                break;
+            default:
+                throw new IllegalStateException("No migration to database version " + version);
+        }
+    }
+    
+    // Create the costume search index, kept in step with the costumes table by triggers.
+    // Prefix indexes make short search-as-you-type prefixes as cheap as whole words.
+    private void createCostumeSearchIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_COSTUMES_FTS + " USING fts4(" +
+                COL_NAME + ", " + COL_SIZE + ", prefix=\"1,2,3\", tokenize=unicode61)");
+        
+        // INSERT OR REPLACE on costumes does not fire the delete trigger, so inserts replace the entry too
+        String upsertEntry = "INSERT OR REPLACE INTO " + TABLE_COSTUMES_FTS + " (docid, " + COL_NAME + ", " + COL_SIZE + ") " +
+                "VALUES (new." + COL_ID + ", new." + COL_NAME + ", new." + COL_SIZE + ")";
+        db.execSQL("CREATE TRIGGER costumes_fts_insert AFTER INSERT ON " + TABLE_COSTUMES +
+                " BEGIN " + upsertEntry + "; END");
+        db.execSQL("CREATE TRIGGER costumes_fts_update AFTER UPDATE OF " + COL_NAME + ", " + COL_SIZE + " ON " + TABLE_COSTUMES +
+                " BEGIN " + upsertEntry + "; END");
+        db.execSQL("CREATE TRIGGER costumes_fts_delete AFTER DELETE ON " + TABLE_COSTUMES +
+                " BEGIN DELETE FROM " + TABLE_COSTUMES_FTS + " WHERE docid = old." + COL_ID + "; END");
+    }
+    
+    // Create the booked ranges table, a costume's ranges are read in start order straight from the primary key
+    private void createBookedRangesTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_BOOKED_RANGES + " (" +
+                COL_RANGE_COSTUME_ID + " INTEGER NOT NULL, " +
+                COL_RANGE_START_DAY + " INTEGER NOT NULL, " +
+                COL_RANGE_END_DAY + " INTEGER NOT NULL, " +
+                "PRIMARY KEY (" + COL_RANGE_COSTUME_ID + ", " + COL_RANGE_START_DAY + ", " + COL_RANGE_END_DAY + ")) WITHOUT ROWID");
+    }
+    
+    // Create outbox table (writes made offline, replayed by OutboxReplayer)
+    private void createOutboxTable(SQLiteDatabase db) {
+        String createOutbox = "CREATE TABLE " + TABLE_OUTBOX + " (" +
+                COL_OUTBOX_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COL_IDEMPOTENCY_KEY + " TEXT NOT NULL UNIQUE, " +
+                COL_OPERATION + " TEXT NOT NULL, " +
+                COL_TARGET_ID + " INTEGER, " +
+                COL_PAYLOAD + " TEXT, " +
+                COL_AUTH_TOKEN + " TEXT, " +
+                COL_DESCRIPTION + " TEXT, " +
+                COL_STATUS + " TEXT NOT NULL DEFAULT '" + OutboxEntry.STATUS_PENDING + "', " +
+                COL_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, " +
+                COL_LAST_ERROR + " TEXT, " +
+                COL_CREATED_AT + " INTEGER)";
+        db.execSQL(createOutbox);
+    }
+    
+    // Create reservations and users tables (local copy used for offline lists and deadline reminders)
+    private void createReservationTables(SQLiteDatabase db) {
+        String createUsers = "CREATE TABLE " + TABLE_USERS + " (" +
+                COL_USER_ID + " INTEGER PRIMARY KEY, " +
+                COL_USER_NAME + " TEXT, " +
+                COL_USER_EMAIL + " TEXT)";
+        db.execSQL(createUsers);
         
-        // Insert or replace
-        db.insertWithOnConflict(TABLE_COSTUMES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
-        db.close();
+        String createReservations = "CREATE TABLE " + TABLE_RESERVATIONS + " (" +
+                COL_RES_ID + " INTEGER PRIMARY KEY, " +
+                COL_RES_COSTUME_ID + " INTEGER NOT NULL, " +
+                COL_RES_USER_ID + " INTEGER NOT NULL, " +
+                COL_RES_START_DATE + " TEXT, " +
+                COL_RES_END_DATE + " TEXT, " +
+                COL_RES_START_DAY + " INTEGER, " +
+                COL_RES_END_DAY + " INTEGER, " +
+                COL_RES_STATUS + " TEXT, " +
+                COL_RES_NOTIFIED_DAY + " INTEGER, " +
+                COL_RES_COSTUME_NAME + " TEXT)";
+        db.execSQL(createReservations);
+        
+        // Availability of a costume (approved bookings by end date), a user's reservations, upcoming deadlines
+        db.execSQL("CREATE INDEX idx_reservations_costume_status_end ON " + TABLE_RESERVATIONS +
+                " (" + COL_RES_COSTUME_ID + ", " + COL_RES_STATUS + ", " + COL_RES_END_DAY + ")");
+        db.execSQL("CREATE INDEX idx_reservations_user ON " + TABLE_RESERVATIONS + " (" + COL_RES_USER_ID + ")");
+        db.execSQL("CREATE INDEX idx_reservations_status_end_day ON " + TABLE_RESERVATIONS +
+                " (" + COL_RES_STATUS + ", " + COL_RES_END_DAY + ")");
+    }
+    
+    // Save one page of costumes: rows in the page's id range (afterId, lastId] are replaced by the page
+    public void saveCostumePage(List<Costume> page, int afterId, Integer lastId) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // The last page (lastId == null) covers everything above afterId
+            if (lastId == null) {
+                replaceCostumes(db, page, COL_ID + " > ?", new String[]{String.valueOf(afterId)});
+            } else {
+                replaceCostumes(db, page, COL_ID + " > ? AND " + COL_ID + " <= ?",
+                        new String[]{String.valueOf(afterId), String.valueOf(lastId)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
     }
     
-    // Save all costumes
-    public void saveCostumes(List<Costume> costumes) {
+    // Merge a delta sync into the local table: upsert changed rows, remove deleted ones
+    public void applyCostumeChanges(List<Costume> changed, List<Integer> deletedIds) {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_COSTUMES, null, null); // Clear existing data
+        db.beginTransaction();
+        try {
+            if (changed != null) {
+                // Everything in a delta changed on the server, so there is nothing to diff against
+                writeCostumes(db, changed, new HashMap<Integer, Costume>());
+            }
+            if (deletedIds != null) {
+                deleteCostumes(db, deletedIds);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+    
+    // Make the rows matching where (null for the whole table) equal to costumes: new and changed rows
+    // are written, rows missing from the list are deleted, identical rows are left alone.
+    // Must run inside a transaction. Returns the number of rows written or deleted.
+    private int replaceCostumes(SQLiteDatabase db, List<Costume> costumes, String where, String[] whereArgs) {
+        Map<Integer, Costume> existing = readCostumes(db, where, whereArgs);
+        int written = writeCostumes(db, costumes, existing);
+        
+        // writeCostumes took out every row still in the list, what is left was removed on the server
+        deleteCostumes(db, existing.keySet());
+        return written + existing.size();
+    }
+    
+    // Write the costumes that are new or differ from existing, with one compiled statement per table.
+    // Rows found in existing are removed from it. Returns the number of rows written.
+    private int writeCostumes(SQLiteDatabase db, List<Costume> costumes, Map<Integer, Costume> existing) {
+        SQLiteStatement insert = db.compileStatement(SQL_UPSERT_COSTUME);
+        SQLiteStatement deleteRanges = db.compileStatement(SQL_DELETE_BOOKED_RANGES);
+        SQLiteStatement insertRange = db.compileStatement(SQL_INSERT_BOOKED_RANGE);
+        int written = 0;
+        try {
+            for (Costume costume : costumes) {
+                Costume current = existing.remove(costume.getId());
+                if (current != null && sameContent(current, costume)) {
+                    continue;
+                }
+                insert.clearBindings();
+                insert.bindLong(1, costume.getId());
+                bindStringOrNull(insert, 2, costume.getName());
+                bindStringOrNull(insert, 3, costume.getSize());
+                insert.bindDouble(4, costume.getPrice());
+                bindStringOrNull(insert, 5, costume.getImage());
+                insert.bindLong(6, costume.isIs_available() ? 1 : 0);
+                bindStringOrNull(insert, 7, costume.getNext_available_date());
+                insert.executeInsert();
+                
+                deleteRanges.bindLong(1, costume.getId());
+                deleteRanges.executeUpdateDelete();
+                if (costume.getBooked_ranges() != null) {
+                    for (BookedRange range : costume.getBooked_ranges()) {
+                        int startDay = DateUtils.parseEpochDay(range.getStart_date());
+                        int endDay = DateUtils.parseEpochDay(range.getEnd_date());
+                        if (startDay == DateUtils.INVALID_DAY || endDay == DateUtils.INVALID_DAY) {
+                            continue;
+                        }
+                        insertRange.bindLong(1, costume.getId());
+                        insertRange.bindLong(2, startDay);
+                        insertRange.bindLong(3, endDay);
+                        insertRange.executeInsert();
+                    }
+                }
+                written++;
+            }
+        } finally {
+            insert.close();
+            deleteRanges.close();
+            insertRange.close();
+        }
+        return written;
+    }
+    
+    // Delete costumes by id with one compiled statement
+    private void deleteCostumes(SQLiteDatabase db, Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        SQLiteStatement delete = db.compileStatement(SQL_DELETE_COSTUME);
+        SQLiteStatement deleteRanges = db.compileStatement(SQL_DELETE_BOOKED_RANGES);
+        try {
+            for (Integer id : ids) {
+                delete.bindLong(1, id);
+                delete.executeUpdateDelete();
+                deleteRanges.bindLong(1, id);
+                deleteRanges.executeUpdateDelete();
+            }
+        } finally {
+            delete.close();
+            deleteRanges.close();
+        }
+    }
+    
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+    
+    // True if both costumes would be stored as the same row
+    private static boolean sameContent(Costume a, Costume b) {
+        return a.getId() == b.getId()
+                && TextUtils.equals(a.getName(), b.getName())
+                && TextUtils.equals(a.getSize(), b.getSize())
+                && Double.compare(a.getPrice(), b.getPrice()) == 0
+                && TextUtils.equals(a.getImage(), b.getImage())
+                && a.isIs_available() == b.isIs_available()
+                && TextUtils.equals(a.getNext_available_date(), b.getNext_available_date())
+                && sameRanges(a.getBooked_ranges(), b.getBooked_ranges());
+    }
+    
+    // True if both lists hold the same ranges in the same order, null counts as empty
+    private static boolean sameRanges(List<BookedRange> a, List<BookedRange> b) {
+        int size = a != null ? a.size() : 0;
+        if (size != (b != null ? b.size() : 0)) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!TextUtils.equals(a.get(i).getStart_date(), b.get(i).getStart_date())
+                    || !TextUtils.equals(a.get(i).getEnd_date(), b.get(i).getEnd_date())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Read the costumes matching where (null for all), keyed by id in table order
+    private Map<Integer, Costume> readCostumes(SQLiteDatabase db, String where, String[] whereArgs) {
+        Map<Integer, Costume> costumes = new LinkedHashMap<>();
+        Cursor cursor = db.query(TABLE_COSTUMES, null, where, whereArgs, null, null, null);
+        CostumeReader reader = new CostumeReader(cursor);
+        while (cursor.moveToNext()) {
+            Costume costume = reader.read(cursor);
+            costumes.put(costume.getId(), costume);
+        }
+        cursor.close();
+        
+        // Their booked ranges, so a costume whose bookings changed is not taken as unchanged
+        String rangesOf = where != null ? " WHERE " + COL_RANGE_COSTUME_ID + " IN (SELECT " + COL_ID +
+                " FROM " + TABLE_COSTUMES + " WHERE " + where + ")" : "";
+        cursor = db.rawQuery("SELECT * FROM " + TABLE_BOOKED_RANGES + rangesOf, whereArgs);
+        int costumeIdColumn = cursor.getColumnIndexOrThrow(COL_RANGE_COSTUME_ID);
+        int startDayColumn = cursor.getColumnIndexOrThrow(COL_RANGE_START_DAY);
+        int endDayColumn = cursor.getColumnIndexOrThrow(COL_RANGE_END_DAY);
+        while (cursor.moveToNext()) {
+            Costume costume = costumes.get(cursor.getInt(costumeIdColumn));
+            if (costume == null) {
+                continue;
+            }
+            if (costume.getBooked_ranges() == null) {
+                costume.setBooked_ranges(new ArrayList<BookedRange>());
+            }
+            costume.getBooked_ranges().add(new BookedRange(DateUtils.formatEpochDay(cursor.getInt(startDayColumn)),
+                    DateUtils.formatEpochDay(cursor.getInt(endDayColumn))));
+        }
+        cursor.close();
+        return costumes;
+    }
+    
+    // Builds Costume objects from a costumes cursor, column positions are looked up once, not per row
+    private static class CostumeReader {
+        private final int idColumn;
+        private final int nameColumn;
+        private final int sizeColumn;
+        private final int priceColumn;
+        private final int imageColumn;
+        private final int isAvailableColumn;
+        private final int nextAvailableDateColumn;
+        
+        CostumeReader(Cursor cursor) {
+            idColumn = cursor.getColumnIndexOrThrow(COL_ID);
+            nameColumn = cursor.getColumnIndexOrThrow(COL_NAME);
+            sizeColumn = cursor.getColumnIndexOrThrow(COL_SIZE);
+            priceColumn = cursor.getColumnIndexOrThrow(COL_PRICE);
+            imageColumn = cursor.getColumnIndexOrThrow(COL_IMAGE);
+            isAvailableColumn = cursor.getColumnIndexOrThrow(COL_IS_AVAILABLE);
+            nextAvailableDateColumn = cursor.getColumnIndexOrThrow(COL_NEXT_AVAILABLE_DATE);
+        }
+        
+        Costume read(Cursor cursor) {
+            Costume costume = new Costume();
+            costume.setId(cursor.getInt(idColumn));
+            costume.setName(cursor.getString(nameColumn));
+            costume.setSize(cursor.getString(sizeColumn));
+            costume.setPrice(cursor.getDouble(priceColumn));
+            costume.setImage(cursor.getString(imageColumn));
+            costume.setIs_available(cursor.getInt(isAvailableColumn) == 1);
+            costume.setNext_available_date(cursor.getString(nextAvailableDateColumn));
+            return costume;
+        }
+    }
+    
+    // Days a costume is booked from fromDay on (epoch day): its approved bookings from the last catalog
+    // sync together with approved reservations stored since, which may be newer
+    public AvailabilityIndex getAvailabilityIndex(int costumeId, int fromDay) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        String costume = String.valueOf(costumeId);
+        String from = String.valueOf(fromDay);
+        Cursor cursor = db.rawQuery("SELECT " + COL_RANGE_START_DAY + ", " + COL_RANGE_END_DAY + " FROM " + TABLE_BOOKED_RANGES +
+                        " WHERE " + COL_RANGE_COSTUME_ID + " = ? AND " + COL_RANGE_END_DAY + " >= ?" +
+                        " UNION ALL SELECT " + COL_RES_START_DAY + ", " + COL_RES_END_DAY + " FROM " + TABLE_RESERVATIONS +
+                        " WHERE " + COL_RES_COSTUME_ID + " = ? AND " + COL_RES_STATUS + " = 'approved' AND " + COL_RES_END_DAY + " >= ?",
+                new String[]{costume, from, costume, from});
+        
+        int[] starts = new int[cursor.getCount()];
+        int[] ends = new int[starts.length];
+        for (int i = 0; cursor.moveToNext(); i++) {
+            starts[i] = cursor.isNull(0) ? DateUtils.INVALID_DAY : cursor.getInt(0);
+            ends[i] = cursor.isNull(1) ? DateUtils.INVALID_DAY : cursor.getInt(1);
+        }
+        cursor.close();
+        return new AvailabilityIndex(starts, ends);
+    }
+    
+    // Number of stored costumes, only those with id <= upToId unless it is null
+    public int getCostumeCount(Integer upToId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        if (upToId == null) {
+            return (int) DatabaseUtils.queryNumEntries(db, TABLE_COSTUMES);
+        }
+        return (int) DatabaseUtils.queryNumEntries(db, TABLE_COSTUMES, COL_ID + " <= ?",
+                new String[]{String.valueOf(upToId)});
+    }
+    
+    // One window of the catalog in id order: at most limit costumes from position offset,
+    // only those with id <= upToId unless it is null
+    public List<Costume> getCostumeWindow(Integer upToId, int offset, int limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        List<Costume> costumes = new ArrayList<>(limit);
+        String where = upToId != null ? COL_ID + " <= ?" : null;
+        String[] whereArgs = upToId != null ? new String[]{String.valueOf(upToId)} : null;
+        Cursor cursor = db.query(TABLE_COSTUMES, null, where, whereArgs, null, null, COL_ID,
+                offset + "," + limit);
+        CostumeReader reader = new CostumeReader(cursor);
+        while (cursor.moveToNext()) {
+            costumes.add(reader.read(cursor));
+        }
+        cursor.close();
+        return costumes;
+    }
+    
+    // Search-as-you-type over name and size: every word of the query is a prefix that must match.
+    // Results come in tiers, names starting with the query, then names containing every word, then
+    // matches on size, each tier streamed with LIMIT so a short prefix never sorts the whole catalog.
+    public List<Costume> searchCostumes(String query, int limit, CancellationSignal cancellationSignal) {
+        List<Costume> results = new ArrayList<>();
+        String[] words = query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        StringBuilder nameStart = new StringBuilder();
+        StringBuilder nameWords = new StringBuilder();
+        StringBuilder anyWords = new StringBuilder();
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            nameStart.append(nameStart.length() == 0 ? COL_NAME + ":^" : " " + COL_NAME + ":").append(word).append('*');
+            nameWords.append(nameWords.length() == 0 ? "" : " ").append(COL_NAME).append(':').append(word).append('*');
+            anyWords.append(anyWords.length() == 0 ? "" : " ").append(word).append('*');
+        }
+        if (anyWords.length() == 0) {
+            return results;
+        }
+        
+        SQLiteDatabase db = this.getReadableDatabase();
+        StringBuilder excluded = new StringBuilder();
+        for (String match : new String[]{nameStart.toString(), nameWords.toString(), anyWords.toString()}) {
+            if (results.size() >= limit) {
+                break;
+            }
+            // Ids already found by an earlier tier
+            String notIn = excluded.length() > 0 ? " AND docid NOT IN (" + excluded + ")" : "";
+            Cursor cursor = db.rawQuery("SELECT c.* FROM " + TABLE_COSTUMES + " c JOIN (SELECT docid FROM " + TABLE_COSTUMES_FTS +
+                            " WHERE " + TABLE_COSTUMES_FTS + " MATCH ?" + notIn + " LIMIT ?) m ON c." + COL_ID + " = m.docid" +
+                            " ORDER BY c." + COL_NAME + " COLLATE NOCASE",
+                    new String[]{match, String.valueOf(limit - results.size())}, cancellationSignal);
+            CostumeReader reader = new CostumeReader(cursor);
+            while (cursor.moveToNext()) {
+                Costume costume = reader.read(cursor);
+                results.add(costume);
+                excluded.append(excluded.length() > 0 ? "," : "").append(costume.getId());
+            }
+            cursor.close();
+        }
+        return results;
+    }
+    
+    // Get a delta sync cursor (null if never synced)
+    public String getSyncCursor(String key) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_SYNC_STATE, new String[]{COL_SYNC_VALUE},
+                COL_SYNC_KEY + " = ?", new String[]{key}, null, null, null);
         
-        for (Costume costume : costumes) {
+        String value = null;
+        if (cursor.moveToFirst()) {
+            value = cursor.getString(0);
+        }
+        cursor.close();
+        return value;
+    }
+    
+    // Save a delta sync cursor (null clears it and forces a full sync)
+    public void saveSyncCursor(String key, String value) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        if (value == null) {
+            db.delete(TABLE_SYNC_STATE, COL_SYNC_KEY + " = ?", new String[]{key});
+        } else {
             ContentValues values = new ContentValues();
-            values.put(COL_ID, costume.getId());
-            values.put(COL_NAME, costume.getName());
-            values.put(COL_SIZE, costume.getSize());
-            values.put(COL_PRICE, costume.getPrice());
-            values.put(COL_IMAGE, costume.getImage());
-            db.insert(TABLE_COSTUMES, null, values);
+            values.put(COL_SYNC_KEY, key);
+            values.put(COL_SYNC_VALUE, value);
+            db.insertWithOnConflict(TABLE_SYNC_STATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
         }
-        db.close();
     }
     
-    // Get all costumes from local database
-    public List<Costume> getAllCostumes() {
-        List<Costume> costumes = new ArrayList<>();
+    // Record a write to replay later, returns false if the idempotency key is already queued
+    public boolean addOutboxEntry(OutboxEntry entry) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(COL_IDEMPOTENCY_KEY, entry.getIdempotency_key());
+        values.put(COL_OPERATION, entry.getOperation());
+        values.put(COL_TARGET_ID, entry.getTarget_id());
+        values.put(COL_PAYLOAD, entry.getPayload());
+        values.put(COL_AUTH_TOKEN, entry.getAuth_token());
+        values.put(COL_DESCRIPTION, entry.getDescription());
+        values.put(COL_STATUS, OutboxEntry.STATUS_PENDING);
+        values.put(COL_CREATED_AT, entry.getCreated_at());
+        long id = db.insertWithOnConflict(TABLE_OUTBOX, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+        return id != -1;
+    }
+    
+    // Oldest pending outbox entries first, at most limit
+    public List<OutboxEntry> getPendingOutboxEntries(int limit) {
+        List<OutboxEntry> entries = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.query(TABLE_COSTUMES, null, null, null, null, null, null);
+        Cursor cursor = db.query(TABLE_OUTBOX, null, COL_STATUS + " = ?",
+                new String[]{OutboxEntry.STATUS_PENDING}, null, null, COL_OUTBOX_ID + " ASC", String.valueOf(limit));
         
         if (cursor.moveToFirst()) {
             do {
-                Costume costume = new Costume();
-                costume.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COL_ID)));
-                costume.setName(cursor.getString(cursor.getColumnIndexOrThrow(COL_NAME)));
-                costume.setSize(cursor.getString(cursor.getColumnIndexOrThrow(COL_SIZE)));
-                costume.setPrice(cursor.getDouble(cursor.getColumnIndexOrThrow(COL_PRICE)));
-                costume.setImage(cursor.getString(cursor.getColumnIndexOrThrow(COL_IMAGE)));
-                costumes.add(costume);
+                OutboxEntry entry = new OutboxEntry();
+                entry.setId(cursor.getLong(cursor.getColumnIndexOrThrow(COL_OUTBOX_ID)));
+                entry.setIdempotency_key(cursor.getString(cursor.getColumnIndexOrThrow(COL_IDEMPOTENCY_KEY)));
+                entry.setOperation(cursor.getString(cursor.getColumnIndexOrThrow(COL_OPERATION)));
+                entry.setTarget_id(cursor.getInt(cursor.getColumnIndexOrThrow(COL_TARGET_ID)));
+                entry.setPayload(cursor.getString(cursor.getColumnIndexOrThrow(COL_PAYLOAD)));
+                entry.setAuth_token(cursor.getString(cursor.getColumnIndexOrThrow(COL_AUTH_TOKEN)));
+                entry.setDescription(cursor.getString(cursor.getColumnIndexOrThrow(COL_DESCRIPTION)));
+                entry.setStatus(cursor.getString(cursor.getColumnIndexOrThrow(COL_STATUS)));
+                entry.setAttempts(cursor.getInt(cursor.getColumnIndexOrThrow(COL_ATTEMPTS)));
+                entry.setLast_error(cursor.getString(cursor.getColumnIndexOrThrow(COL_LAST_ERROR)));
+                entry.setCreated_at(cursor.getLong(cursor.getColumnIndexOrThrow(COL_CREATED_AT)));
+                entries.add(entry);
             } while (cursor.moveToNext());
         }
         cursor.close();
-        db.close();
-        return costumes;
+        return entries;
     }
-}
-
+    
+    // Number of writes still waiting to be sent
+    public int getPendingOutboxCount() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        int count = (int) DatabaseUtils.queryNumEntries(db, TABLE_OUTBOX, COL_STATUS + " = ?",
+                new String[]{OutboxEntry.STATUS_PENDING});
+        return count;
+    }
+    
+    // Remove an entry once the server accepted it
+    public void deleteOutboxEntry(long id) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.delete(TABLE_OUTBOX, COL_OUTBOX_ID + " = ?", new String[]{String.valueOf(id)});
+    }
+    
+    // Forget every entry, pending or refused (logout)
+    public void clearOutbox() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.delete(TABLE_OUTBOX, null, null);
+    }
+    
+    // Keep an entry the server refused, with its reason, out of further replays
+    public void markOutboxConflict(long id, String error) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(COL_STATUS, OutboxEntry.STATUS_CONFLICT);
+        values.put(COL_LAST_ERROR, error);
+        db.update(TABLE_OUTBOX, values, COL_OUTBOX_ID + " = ?", new String[]{String.valueOf(id)});
+    }
+    
+    // Count a failed attempt (still offline or server error), the entry stays pending
+    public void recordOutboxAttempt(long id, String error) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.execSQL("UPDATE " + TABLE_OUTBOX + " SET " + COL_ATTEMPTS + " = " + COL_ATTEMPTS + " + 1, " +
+                COL_LAST_ERROR + " = ? WHERE " + COL_OUTBOX_ID + " = ?", new Object[]{error, id});
+    }
+    
+    // Upsert reservations from a sync, with the users they reference and the name of their costume.
+    // The costume itself is not stored: the catalog only holds what the catalog sync returned, a reservation
+    // may be for a costume deleted since. The day a deadline reminder was last shown is kept.
+    public void saveReservations(List<Reservation> reservations) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (Reservation reservation : reservations) {
+                if (reservation.getUser() != null) {
+                    ContentValues user = new ContentValues();
+                    user.put(COL_USER_ID, reservation.getUser().getId());
+                    user.put(COL_USER_NAME, reservation.getUser().getName());
+                    user.put(COL_USER_EMAIL, reservation.getUser().getEmail());
+                    db.insertWithOnConflict(TABLE_USERS, null, user, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                
+                ContentValues values = new ContentValues();
+                values.put(COL_RES_COSTUME_ID, reservation.getCostume_id());
+                values.put(COL_RES_USER_ID, reservation.getUser_id());
+                values.put(COL_RES_START_DATE, reservation.getStart_date());
+                values.put(COL_RES_END_DATE, reservation.getEnd_date());
+                values.put(COL_RES_START_DAY, DateUtils.parseEpochDay(reservation.getStart_date()));
+                values.put(COL_RES_END_DAY, DateUtils.parseEpochDay(reservation.getEnd_date()));
+                values.put(COL_RES_STATUS, reservation.getStatus());
+                if (reservation.getCostume() != null) {
+                    values.put(COL_RES_COSTUME_NAME, reservation.getCostume().getName());
+                }
+                
+                String[] args = {String.valueOf(reservation.getId())};
+                if (db.update(TABLE_RESERVATIONS, values, COL_RES_ID + " = ?", args) == 0) {
+                    values.put(COL_RES_ID, reservation.getId());
+                    db.insert(TABLE_RESERVATIONS, null, values);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+    
+    // Stored reservations, all of them (userId == null) or one user's, oldest first
+    public List<Reservation> getReservations(Integer userId) {
+        if (userId == null) {
+            return queryReservations(null, null, "r." + COL_RES_ID + " ASC");
+        }
+        return queryReservations("r." + COL_RES_USER_ID + " = ?", new String[]{String.valueOf(userId)},
+                "r." + COL_RES_ID + " ASC");
+    }
+    
+    // Approved reservations ending between fromDay and toDay (epoch days) not reminded about since notifiedBefore
+    public List<Reservation> getDeadlinesToNotify(int fromDay, int toDay, int notifiedBefore) {
+        return queryReservations("r." + COL_RES_STATUS + " = 'approved' AND r." + COL_RES_END_DAY + " BETWEEN ? AND ? AND (r." +
+                        COL_RES_NOTIFIED_DAY + " IS NULL OR r." + COL_RES_NOTIFIED_DAY + " < ?)",
+                new String[]{String.valueOf(fromDay), String.valueOf(toDay), String.valueOf(notifiedBefore)},
+                "r." + COL_RES_END_DAY + " ASC");
+    }
+    
+    private List<Reservation> queryReservations(String where, String[] whereArgs, String orderBy) {
+        List<Reservation> reservations = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        String sql = SQL_SELECT_RESERVATIONS + (where != null ? " WHERE " + where : "") + " ORDER BY " + orderBy;
+        Cursor cursor = db.rawQuery(sql, whereArgs);
+        
+        int idColumn = cursor.getColumnIndexOrThrow(COL_RES_ID);
+        int costumeIdColumn = cursor.getColumnIndexOrThrow(COL_RES_COSTUME_ID);
+        int userIdColumn = cursor.getColumnIndexOrThrow(COL_RES_USER_ID);
+        int startDateColumn = cursor.getColumnIndexOrThrow(COL_RES_START_DATE);
+        int endDateColumn = cursor.getColumnIndexOrThrow(COL_RES_END_DATE);
+        int statusColumn = cursor.getColumnIndexOrThrow(COL_RES_STATUS);
+        int costumeNameColumn = cursor.getColumnIndexOrThrow(COL_RES_COSTUME_NAME);
+        int userNameColumn = cursor.getColumnIndexOrThrow("user_name");
+        
+        while (cursor.moveToNext()) {
+            Reservation reservation = new Reservation();
+            reservation.setId(cursor.getInt(idColumn));
+            reservation.setCostume_id(cursor.getInt(costumeIdColumn));
+            reservation.setUser_id(cursor.getInt(userIdColumn));
+            reservation.setStart_date(cursor.getString(startDateColumn));
+            reservation.setEnd_date(cursor.getString(endDateColumn));
+            reservation.setStatus(cursor.getString(statusColumn));
+            
+            // Unknown costume or user stays null, screens fall back to showing the id
+            if (!cursor.isNull(costumeNameColumn)) {
+                Costume costume = new Costume();
+                costume.setId(reservation.getCostume_id());
+                costume.setName(cursor.getString(costumeNameColumn));
+                reservation.setCostume(costume);
+            }
+            if (!cursor.isNull(userNameColumn)) {
+                User user = new User();
+                user.setId(reservation.getUser_id());
+                user.setName(cursor.getString(userNameColumn));
+                reservation.setUser(user);
+            }
+            reservations.add(reservation);
+        }
+        cursor.close();
+        return reservations;
+    }
+    
+    // Remember that a reservation's deadline reminder was shown on the given day
+    public void markDeadlineNotified(int reservationId, int day) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(COL_RES_NOTIFIED_DAY, day);
+        db.update(TABLE_RESERVATIONS, values, COL_RES_ID + " = ?", new String[]{String.valueOf(reservationId)});
+    }
+    
+    // Earliest end day (epoch day) on or after fromDay of a reservation that has or may get a deadline
+    // (approved or still pending), INVALID_DAY if none
+    public int getNearestDeadlineDay(int fromDay) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT MIN(" + COL_RES_END_DAY + ") FROM " + TABLE_RESERVATIONS +
+                " WHERE " + COL_RES_STATUS + " IN ('approved', 'pending') AND " + COL_RES_END_DAY + " >= ?",
+                new String[]{String.valueOf(fromDay)});
+        
+        int day = DateUtils.INVALID_DAY;
+        if (cursor.moveToFirst() && !cursor.isNull(0)) {
+            day = cursor.getInt(0);
+        }
+        cursor.close();
+        return day;
+    }
+    
+    // Forget the local reservations, their users and the sync cursor (on logout, the next user starts fresh)
+    // Delete stored reservations whose id is not in keepIds (gone from the server since they were stored)
+    public void deleteReservationsExcept(Collection<Integer> keepIds) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Cursor cursor = db.rawQuery("SELECT " + COL_RES_ID + " FROM " + TABLE_RESERVATIONS, null);
+            List<Integer> gone = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                if (!keepIds.contains(cursor.getInt(0))) {
+                    gone.add(cursor.getInt(0));
+                }
+            }
+            cursor.close();
+            for (Integer id : gone) {
+                db.delete(TABLE_RESERVATIONS, COL_RES_ID + " = ?", new String[]{String.valueOf(id)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+    
+    public void clearReservations() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.delete(TABLE_RESERVATIONS, null, null);
+        db.delete(TABLE_USERS, null, null);
+        db.delete(TABLE_SYNC_STATE, COL_SYNC_KEY + " = ?", new String[]{SYNC_KEY_MY_RESERVATIONS});
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.costumerental.app.models;
+
+import java.util.List;
+import java.util.Map;
+
+// Error body of a failed API call (4xx/5xx), decoded once by ApiClient.parseError
+public class ApiError {
+    private int code;
+    private String message;
+    private Map<String, List<String>> errors; // Laravel validation errors, field -> messages
+
+    public ApiError() {
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public void setCode(int code) {
+        this.code = code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Map<String, List<String>> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(Map<String, List<String>> errors) {
+        this.errors = errors;
+    }
+
+    // Another approved reservation already holds the costume for these dates
+    public boolean isConflict() {
+        return code == 409;
+    }
+
+    // Text to show the user: validation errors one per line, else the server message, else the fallback
+    public String getDisplayMessage(String fallback) {
+        if (errors != null && !errors.isEmpty()) {
+            StringBuilder builder = new StringBuilder();
+            for (List<String> fieldErrors : errors.values()) {
+                for (String error : fieldErrors) {
+                    if (builder.length() > 0) {
+                        builder.append("\n");
+                    }
+                    builder.append(error);
+                }
+            }
+            if (builder.length() > 0) {
+                return builder.toString();
+            }
+        }
+        if (message != null && !message.isEmpty()) {
+            return message;
+        }
+        return fallback + " (Code: " + code + ")";
+    }
+}
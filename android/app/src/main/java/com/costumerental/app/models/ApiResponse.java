@@ -10,6 +10,7 @@ public class ApiResponse<T> {
     private String token;
     private User user;
     private List<T> dataList;
+    private Integer next_cursor; // last id of a costume page, null on the last page
 
     public boolean isSuccess() {
         return success;
@@ -58,4 +59,12 @@ public class ApiResponse<T> {
     public void setDataList(List<T> dataList) {
         this.dataList = dataList;
     }
+
+    public Integer getNext_cursor() {
+        return next_cursor;
+    }
+
+    public void setNext_cursor(Integer next_cursor) {
+        this.next_cursor = next_cursor;
+    }
 }
@@ -0,0 +1,50 @@
+package com.costumerental.app.models;
+
+import java.util.List;
+
+// Result of a batch approve/reject: reservations updated and the ones that failed
+public class BatchResult {
+    private List<Reservation> updated;
+    private List<Failure> failed;
+
+    public BatchResult() {
+    }
+
+    public List<Reservation> getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(List<Reservation> updated) {
+        this.updated = updated;
+    }
+
+    public List<Failure> getFailed() {
+        return failed;
+    }
+
+    public void setFailed(List<Failure> failed) {
+        this.failed = failed;
+    }
+
+    // A reservation the server could not update, with the reason
+    public static class Failure {
+        private int id;
+        private String message;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.costumerental.app.models;
+
+// Period a costume is booked by an approved reservation, both dates included ("yyyy-MM-dd")
+public class BookedRange {
+    private String start_date;
+    private String end_date;
+
+    public BookedRange() {
+    }
+
+    public BookedRange(String start_date, String end_date) {
+        this.start_date = start_date;
+        this.end_date = end_date;
+    }
+
+    public String getStart_date() {
+        return start_date;
+    }
+
+    public void setStart_date(String start_date) {
+        this.start_date = start_date;
+    }
+
+    public String getEnd_date() {
+        return end_date;
+    }
+
+    public void setEnd_date(String end_date) {
+        this.end_date = end_date;
+    }
+}
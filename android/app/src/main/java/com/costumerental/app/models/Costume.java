@@ -1,5 +1,7 @@
 package com.costumerental.app.models;
 
+import java.util.List;
+
 // Costume model
 public class Costume {
     private int id;
@@ -9,6 +11,7 @@ public class Costume {
     private String image;
     private boolean is_available;
     private String next_available_date;
+    private List<BookedRange> booked_ranges; // approved bookings from today on, by start date
 
     public Costume() {
     }
@@ -76,4 +79,12 @@ public class Costume {
     public void setNext_available_date(String next_available_date) {
         this.next_available_date = next_available_date;
     }
+
+    public List<BookedRange> getBooked_ranges() {
+        return booked_ranges;
+    }
+
+    public void setBooked_ranges(List<BookedRange> booked_ranges) {
+        this.booked_ranges = booked_ranges;
+    }
 }
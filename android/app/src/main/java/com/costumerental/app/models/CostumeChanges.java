@@ -0,0 +1,37 @@
+package com.costumerental.app.models;
+
+import java.util.List;
+
+// Delta sync response: costumes changed or deleted since a sync cursor
+public class CostumeChanges {
+    private List<Costume> costumes;
+    private List<Integer> deleted_ids;
+    private String cursor;
+
+    public CostumeChanges() {
+    }
+
+    public List<Costume> getCostumes() {
+        return costumes;
+    }
+
+    public void setCostumes(List<Costume> costumes) {
+        this.costumes = costumes;
+    }
+
+    public List<Integer> getDeleted_ids() {
+        return deleted_ids;
+    }
+
+    public void setDeleted_ids(List<Integer> deleted_ids) {
+        this.deleted_ids = deleted_ids;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+}
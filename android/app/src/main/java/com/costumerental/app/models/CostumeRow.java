@@ -0,0 +1,75 @@
+package com.costumerental.app.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Costume as shown in a list row, text and colors formatted once off the main thread so binding only sets them
+public class CostumeRow {
+    public static final int COLOR_AVAILABLE = 0xFF4CAF50; // Green
+    public static final int COLOR_UNAVAILABLE = 0xFFF44336; // Red
+
+    private final Costume costume;
+    private final String sizeText;
+    private final String priceText;
+    private final String availabilityText;
+    private final int availabilityColor;
+
+    public CostumeRow(Costume costume) {
+        this.costume = costume;
+        this.sizeText = "Size: " + costume.getSize();
+        this.priceText = "Price: $" + costume.getPrice();
+
+        String nextAvailableDate = costume.getNext_available_date();
+        if (costume.isIs_available()) {
+            this.availabilityText = "✓ Available Now";
+            this.availabilityColor = COLOR_AVAILABLE;
+        } else if (nextAvailableDate != null && !nextAvailableDate.isEmpty()) {
+            this.availabilityText = "✗ Not Available Until: " + nextAvailableDate;
+            this.availabilityColor = COLOR_UNAVAILABLE;
+        } else {
+            this.availabilityText = "✗ Not Available";
+            this.availabilityColor = COLOR_UNAVAILABLE;
+        }
+    }
+
+    // Rows for a list of costumes, in the same order
+    public static List<CostumeRow> fromAll(List<Costume> costumes) {
+        List<CostumeRow> rows = new ArrayList<>(costumes.size());
+        for (Costume costume : costumes) {
+            rows.add(new CostumeRow(costume));
+        }
+        return rows;
+    }
+
+    public Costume getCostume() {
+        return costume;
+    }
+
+    public int getId() {
+        return costume.getId();
+    }
+
+    public String getName() {
+        return costume.getName();
+    }
+
+    public String getImage() {
+        return costume.getImage();
+    }
+
+    public String getSizeText() {
+        return sizeText;
+    }
+
+    public String getPriceText() {
+        return priceText;
+    }
+
+    public String getAvailabilityText() {
+        return availabilityText;
+    }
+
+    public int getAvailabilityColor() {
+        return availabilityColor;
+    }
+}
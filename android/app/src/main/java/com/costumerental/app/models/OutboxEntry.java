@@ -0,0 +1,110 @@
+package com.costumerental.app.models;
+
+// A write recorded while offline, waiting in the outbox to be replayed
+public class OutboxEntry {
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_CONFLICT = "conflict";
+
+    private long id;
+    private String idempotency_key;
+    private String operation;
+    private int target_id;
+    private String payload;
+    private String auth_token;
+    private String description;
+    private String status;
+    private int attempts;
+    private String last_error;
+    private long created_at;
+
+    public OutboxEntry() {
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getIdempotency_key() {
+        return idempotency_key;
+    }
+
+    public void setIdempotency_key(String idempotency_key) {
+        this.idempotency_key = idempotency_key;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public int getTarget_id() {
+        return target_id;
+    }
+
+    public void setTarget_id(int target_id) {
+        this.target_id = target_id;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public String getAuth_token() {
+        return auth_token;
+    }
+
+    public void setAuth_token(String auth_token) {
+        this.auth_token = auth_token;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLast_error() {
+        return last_error;
+    }
+
+    public void setLast_error(String last_error) {
+        this.last_error = last_error;
+    }
+
+    public long getCreated_at() {
+        return created_at;
+    }
+
+    public void setCreated_at(long created_at) {
+        this.created_at = created_at;
+    }
+}
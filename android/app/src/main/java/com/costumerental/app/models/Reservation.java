@@ -1,5 +1,7 @@
 package com.costumerental.app.models;
 
+import com.costumerental.app.utils.DateUtils;
+
 // Reservation model
 public class Reservation {
     private int id;
@@ -11,6 +13,10 @@ public class Reservation {
     private Costume costume;
     private User user;
 
+    // Dates as epoch days, parsed once when the date strings are set
+    private transient int startDay = DateUtils.INVALID_DAY;
+    private transient int endDay = DateUtils.INVALID_DAY;
+
     public Reservation() {
     }
 
@@ -44,6 +50,7 @@ public class Reservation {
 
     public void setStart_date(String start_date) {
         this.start_date = start_date;
+        this.startDay = DateUtils.parseEpochDay(start_date);
     }
 
     public String getEnd_date() {
@@ -52,6 +59,15 @@ public class Reservation {
 
     public void setEnd_date(String end_date) {
         this.end_date = end_date;
+        this.endDay = DateUtils.parseEpochDay(end_date);
+    }
+
+    public int getStartDay() {
+        return startDay;
+    }
+
+    public int getEndDay() {
+        return endDay;
     }
 
     public Costume getCostume() {
@@ -0,0 +1,90 @@
+package com.costumerental.app.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Reservation as shown in a list row, text and colors formatted once off the main thread so binding only sets them
+public class ReservationRow {
+    public static final int COLOR_APPROVED = 0xFF4CAF50; // Green
+    public static final int COLOR_REJECTED = 0xFFF44336; // Red
+    public static final int COLOR_PENDING = 0xFFFF9800; // Orange
+
+    private final Reservation reservation;
+    private final String costumeText;
+    private final String userText;
+    private final String datesText;
+    private final String statusText;
+    private final int statusColor;
+    private final boolean pending;
+
+    public ReservationRow(Reservation reservation) {
+        this.reservation = reservation;
+
+        if (reservation.getCostume() != null) {
+            this.costumeText = reservation.getCostume().getName();
+        } else {
+            this.costumeText = "Costume #" + reservation.getCostume_id();
+        }
+
+        if (reservation.getUser() != null) {
+            this.userText = "User: " + reservation.getUser().getName();
+        } else {
+            this.userText = "User ID: " + reservation.getUser_id();
+        }
+
+        this.datesText = "Dates: " + reservation.getStart_date() + " to " + reservation.getEnd_date();
+
+        String status = reservation.getStatus() != null && !reservation.getStatus().isEmpty() ? reservation.getStatus() : "pending";
+        this.statusText = "Status: " + status.substring(0, 1).toUpperCase() + status.substring(1);
+        if (status.equals("approved")) {
+            this.statusColor = COLOR_APPROVED;
+        } else if (status.equals("rejected")) {
+            this.statusColor = COLOR_REJECTED;
+        } else {
+            this.statusColor = COLOR_PENDING;
+        }
+        this.pending = status.equals("pending");
+    }
+
+    // Rows for a list of reservations, in the same order
+    public static List<ReservationRow> fromAll(List<Reservation> reservations) {
+        List<ReservationRow> rows = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            rows.add(new ReservationRow(reservation));
+        }
+        return rows;
+    }
+
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    public int getId() {
+        return reservation.getId();
+    }
+
+    public String getCostumeText() {
+        return costumeText;
+    }
+
+    public String getUserText() {
+        return userText;
+    }
+
+    public String getDatesText() {
+        return datesText;
+    }
+
+    public String getStatusText() {
+        return statusText;
+    }
+
+    public int getStatusColor() {
+        return statusColor;
+    }
+
+    // Only pending reservations can be approved, rejected or selected
+    public boolean isPending() {
+        return pending;
+    }
+}
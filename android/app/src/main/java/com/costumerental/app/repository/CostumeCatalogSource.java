@@ -0,0 +1,216 @@
+package com.costumerental.app.repository;
+
+import android.content.Context;
+import android.util.LruCache;
+
+import com.costumerental.app.database.DatabaseHelper;
+import com.costumerental.app.models.Costume;
+import com.costumerental.app.models.CostumeRow;
+import com.costumerental.app.utils.AppExecutors;
+
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The local catalog as a list for the adapter, read from SQLite a window at a time and formatted into
+// rows on the same background thread. Only the windows around the rows on screen are kept, so memory
+// stays the same however large the catalog grows.
+// get() returns null for a row not loaded yet and loads its window; the listener then rebinds it.
+// Main thread only, the adapter must be refreshed in full when refresh() reports the first rows.
+public class CostumeCatalogSource extends AbstractList<CostumeRow> {
+    
+    // Told on the main thread which rows changed
+    public interface Listener {
+        // Rows of a window that just loaded
+        void onRangeLoaded(int positionStart, int itemCount);
+        
+        // The row count grew after the first window was shown
+        void onRangeInserted(int positionStart, int itemCount);
+    }
+    
+    // Rows per window, and windows kept (a few screens above and below the visible rows)
+    private static final int WINDOW_SIZE = 50;
+    private static final int MAX_WINDOWS = 6;
+    
+    private final DatabaseHelper databaseHelper;
+    private final AppExecutors executors;
+    private final Listener listener;
+    private final LruCache<Integer, List<CostumeRow>> windows = new LruCache<>(MAX_WINDOWS);
+    private final Set<Integer> loading = new HashSet<>();
+    private Integer upToId; // Only costumes up to this id are shown, null for all of them
+    private int count;
+    private int generation; // Bumped by refresh, loads started before it are dropped
+    
+    public CostumeCatalogSource(Context context, Listener listener) {
+        this.databaseHelper = DatabaseHelper.getInstance(context);
+        this.executors = AppExecutors.getInstance();
+        this.listener = listener;
+    }
+    
+    // Forget loaded rows and read the catalog again, costumes up to upToId (null for all). onReady runs
+    // once the first window is in, the row count follows through onRangeInserted, so the first rows
+    // show up without counting the whole table.
+    public void refresh(final Integer upToId, final Runnable onReady) {
+        final int refreshGeneration = ++generation;
+        this.upToId = upToId;
+        loading.clear();
+        // The old rows stay readable until the first window replaces them, the adapter is told in onReady
+        
+        // Reads go to the compute executor, WAL lets them run alongside writes on the disk executor
+        executors.compute().execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<CostumeRow> first = CostumeRow.fromAll(databaseHelper.getCostumeWindow(upToId, 0, WINDOW_SIZE));
+                executors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (refreshGeneration != generation) {
+                            return;
+                        }
+                        windows.evictAll();
+                        windows.put(0, first);
+                        count = first.size();
+                        onReady.run();
+                        if (first.size() == WINDOW_SIZE) {
+                            loadCount(refreshGeneration);
+                        }
+                    }
+                });
+            }
+        });
+    }
+    
+    // Show costumes up to a higher id (null for all) without reloading the rows already shown,
+    // new rows are announced through onRangeInserted
+    public void extend(Integer upToId) {
+        this.upToId = upToId;
+        loadCount(generation);
+    }
+    
+    @Override
+    public CostumeRow get(int position) {
+        if (position < 0 || position >= count) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + count);
+        }
+        int window = position / WINDOW_SIZE;
+        int offset = position % WINDOW_SIZE;
+        
+        // Read ahead in the direction the row sits in its window, so scrolling rarely reaches an unloaded row
+        if (offset >= WINDOW_SIZE / 2) {
+            loadWindow(window + 1);
+        } else {
+            loadWindow(window - 1);
+        }
+        
+        List<CostumeRow> rows = windows.get(window);
+        if (rows == null || offset >= rows.size()) {
+            // Missing, or read before the row count grew
+            windows.remove(window);
+            loadWindow(window);
+            return null;
+        }
+        return rows.get(offset);
+    }
+    
+    @Override
+    public int size() {
+        return count;
+    }
+    
+    // The row if its window is in memory, null otherwise; unlike get() it never starts a read
+    public CostumeRow peek(int position) {
+        if (position < 0 || position >= count) {
+            return null;
+        }
+        List<CostumeRow> rows = windows.get(position / WINDOW_SIZE);
+        int offset = position % WINDOW_SIZE;
+        return rows != null && offset < rows.size() ? rows.get(offset) : null;
+    }
+    
+    // Start reading the window of a row that is about to be shown
+    public void prefetch(int position) {
+        if (position >= 0 && position < count) {
+            loadWindow(position / WINDOW_SIZE);
+        }
+    }
+    
+    // Highest id shown, null when the whole catalog is
+    public Integer getUpToId() {
+        return upToId;
+    }
+    
+    // A loaded costume by id, or null if its window is not in memory
+    public Costume findLoaded(int costumeId) {
+        for (Map.Entry<Integer, List<CostumeRow>> entry : windows.snapshot().entrySet()) {
+            for (CostumeRow row : entry.getValue()) {
+                if (row.getId() == costumeId) {
+                    return row.getCostume();
+                }
+            }
+        }
+        return null;
+    }
+    
+    private void loadCount(final int refreshGeneration) {
+        final Integer upToId = this.upToId;
+        executors.compute().execute(new Runnable() {
+            @Override
+            public void run() {
+                final int total = databaseHelper.getCostumeCount(upToId);
+                executors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (refreshGeneration != generation || total <= count) {
+                            return;
+                        }
+                        int start = count;
+                        count = total;
+                        // The last window stopped at the old count, it is read again with the new rows
+                        if (start % WINDOW_SIZE != 0) {
+                            windows.remove(start / WINDOW_SIZE);
+                        }
+                        listener.onRangeInserted(start, total - start);
+                    }
+                });
+            }
+        });
+    }
+    
+    private void loadWindow(final int window) {
+        final int start = window * WINDOW_SIZE;
+        if (window < 0 || start >= count || loading.contains(window) || windows.get(window) != null) {
+            return;
+        }
+        loading.add(window);
+        final int loadGeneration = generation;
+        final Integer upToId = this.upToId;
+        
+        executors.compute().execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<CostumeRow> rows = CostumeRow.fromAll(databaseHelper.getCostumeWindow(upToId, start, WINDOW_SIZE));
+                executors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadGeneration != generation) {
+                            return;
+                        }
+                        loading.remove(window);
+                        // Read before the row count grew: short of rows that are now shown, read it again
+                        if (rows.size() < WINDOW_SIZE && start + rows.size() < count) {
+                            loadWindow(window);
+                            return;
+                        }
+                        windows.put(window, rows);
+                        int loaded = Math.min(rows.size(), count - start);
+                        if (loaded > 0) {
+                            listener.onRangeLoaded(start, loaded);
+                        }
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package com.costumerental.app.repository;
+
+import com.costumerental.app.api.ApiService;
+import com.costumerental.app.models.ApiResponse;
+import com.costumerental.app.models.Costume;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+// Cursor-paginated costume source: loads the catalog one page at a time, each page when asked for
+public class CostumePager {
+    
+    // Receives pages on the main thread
+    public interface Listener {
+        void onPageLoaded(List<Costume> page, int afterId, Integer nextCursor);
+        
+        void onPageFailed(int afterId, Throwable t);
+    }
+    
+    private final ApiService apiService;
+    private final String token;
+    private final int pageSize;
+    private final Listener listener;
+    
+    private int nextAfterId = 0;
+    private boolean hasMore = true;
+    private Call<ApiResponse<List<Costume>>> inFlight;
+    private String syncCursor;
+    
+    public CostumePager(ApiService apiService, String token, int pageSize, Listener listener) {
+        this.apiService = apiService;
+        this.token = token;
+        this.pageSize = pageSize;
+        this.listener = listener;
+    }
+    
+    // Fetch the next page unless one is already loading or the end was reached
+    public void loadNextPage() {
+        if (inFlight != null || !hasMore) {
+            return;
+        }
+        
+        final int afterId = nextAfterId;
+        inFlight = apiService.getCostumesPage(token, afterId, pageSize);
+        inFlight.enqueue(new Callback<ApiResponse<List<Costume>>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<List<Costume>>> call, Response<ApiResponse<List<Costume>>> response) {
+                if (call != inFlight) {
+                    return; // Cancelled or superseded
+                }
+                inFlight = null;
+                
+                if (response.isSuccessful() && response.body() != null) {
+                    ApiResponse<List<Costume>> apiResponse = response.body();
+                    List<Costume> page = apiResponse.getData() != null ? apiResponse.getData() : new ArrayList<Costume>();
+                    
+                    // The first page's server time is where delta sync picks up once every page is stored
+                    if (afterId == 0) {
+                        syncCursor = response.headers().get(ApiService.HEADER_SYNC_CURSOR);
+                    }
+                    
+                    Integer nextCursor = apiResponse.getNext_cursor();
+                    hasMore = nextCursor != null;
+                    if (hasMore) {
+                        nextAfterId = nextCursor;
+                    }
+                    listener.onPageLoaded(page, afterId, nextCursor);
+                } else {
+                    listener.onPageFailed(afterId, new Exception("Failed to load costumes (Code: " + response.code() + ")"));
+                }
+            }
+            
+            @Override
+            public void onFailure(Call<ApiResponse<List<Costume>>> call, Throwable t) {
+                if (call != inFlight) {
+                    return;
+                }
+                inFlight = null;
+                listener.onPageFailed(afterId, t);
+            }
+        });
+    }
+    
+    public boolean hasMore() {
+        return hasMore;
+    }
+    
+    public boolean isLoading() {
+        return inFlight != null;
+    }
+    
+    // Server time of the first page, valid as a delta sync cursor once the last page is loaded
+    public String getSyncCursor() {
+        return syncCursor;
+    }
+    
+    // Stop loading (activity destroyed or list reloaded)
+    public void cancel() {
+        if (inFlight != null) {
+            inFlight.cancel();
+            inFlight = null;
+        }
+        hasMore = false;
+    }
+}
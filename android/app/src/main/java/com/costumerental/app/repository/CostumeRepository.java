@@ -0,0 +1,155 @@
+package com.costumerental.app.repository;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import com.costumerental.app.database.DatabaseHelper;
+import com.costumerental.app.models.Costume;
+import com.costumerental.app.models.CostumeChanges;
+import com.costumerental.app.models.CostumeRow;
+import com.costumerental.app.utils.AppExecutors;
+import com.costumerental.app.utils.AvailabilityIndex;
+import com.costumerental.app.utils.DateUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+// Local costume catalog: every SQLite write runs on the disk executor and reports back on the main thread,
+// so a large catalog never touches the disk from the UI thread. The list itself is read a window at a
+// time through CostumeCatalogSource.
+public class CostumeRepository {
+    
+    // Receives a result on the main thread
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+    
+    // Most results returned for a search
+    private static final int SEARCH_LIMIT = 50;
+    
+    private static CostumeRepository instance;
+    
+    private final DatabaseHelper databaseHelper;
+    private final AppExecutors executors;
+    private CancellationSignal currentSearch; // main thread only
+    
+    private CostumeRepository(Context context) {
+        this.databaseHelper = DatabaseHelper.getInstance(context);
+        this.executors = AppExecutors.getInstance();
+    }
+    
+    public static synchronized CostumeRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new CostumeRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+    
+    // Delta sync cursor of the catalog (null if it was never fully stored)
+    public void getSyncCursor(final Callback<String> callback) {
+        executors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                deliver(callback, databaseHelper.getSyncCursor(DatabaseHelper.SYNC_KEY_COSTUMES));
+            }
+        });
+    }
+    
+    // Store one catalog page; syncCursor is saved with the last page (nextCursor == null), once the whole catalog is stored
+    public void saveCostumePage(final List<Costume> page, final int afterId, final Integer nextCursor, final String syncCursor,
+                                final Runnable onSaved) {
+        executors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.saveCostumePage(page, afterId, nextCursor);
+                if (nextCursor == null) {
+                    databaseHelper.saveSyncCursor(DatabaseHelper.SYNC_KEY_COSTUMES, syncCursor);
+                }
+                executors.mainThread().execute(onSaved);
+            }
+        });
+    }
+    
+    // Merge a delta sync and move the cursor, onApplied runs once it is stored
+    public void applyChanges(final CostumeChanges changes, final Runnable onApplied) {
+        executors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.applyCostumeChanges(changes.getCostumes(), changes.getDeleted_ids());
+                databaseHelper.saveSyncCursor(DatabaseHelper.SYNC_KEY_COSTUMES, changes.getCursor());
+                executors.mainThread().execute(onApplied);
+            }
+        });
+    }
+    
+    // Drop a costume from the local copy, onRemoved runs once it is gone
+    public void removeCostume(final int costumeId, final Runnable onRemoved) {
+        executors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.applyCostumeChanges(null, Collections.singletonList(costumeId));
+                executors.mainThread().execute(onRemoved);
+            }
+        });
+    }
+    
+    // Booked days of a costume from today on, answers availability questions offline
+    public void loadAvailability(final int costumeId, final Callback<AvailabilityIndex> callback) {
+        executors.compute().execute(new Runnable() {
+            @Override
+            public void run() {
+                deliver(callback, databaseHelper.getAvailabilityIndex(costumeId, DateUtils.todayEpochDay()));
+            }
+        });
+    }
+    
+    // Search the local catalog (main thread), results come formatted as list rows. A new search cancels
+    // the previous one, even mid-query, so only the result for the latest text is delivered.
+    public void search(final String query, final Callback<List<CostumeRow>> callback) {
+        cancelSearch();
+        final CancellationSignal signal = new CancellationSignal();
+        currentSearch = signal;
+        
+        // Not the disk executor: a read must not wait behind catalog writes, WAL lets it run alongside them
+        executors.compute().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (signal.isCanceled()) {
+                    return; // Superseded before it started
+                }
+                final List<CostumeRow> results;
+                try {
+                    results = CostumeRow.fromAll(databaseHelper.searchCostumes(query, SEARCH_LIMIT, signal));
+                } catch (OperationCanceledException e) {
+                    return;
+                }
+                executors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!signal.isCanceled()) {
+                            callback.onResult(results);
+                        }
+                    }
+                });
+            }
+        });
+    }
+    
+    // Drop the running search, its result is never delivered
+    public void cancelSearch() {
+        if (currentSearch != null) {
+            currentSearch.cancel();
+            currentSearch = null;
+        }
+    }
+    
+    private <T> void deliver(final Callback<T> callback, final T result) {
+        executors.mainThread().execute(new Runnable() {
+            @Override
+            public void run() {
+                callback.onResult(result);
+            }
+        });
+    }
+}
@@ -0,0 +1,289 @@
+package com.costumerental.app.repository;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.costumerental.app.api.ApiClient;
+import com.costumerental.app.api.ApiService;
+import com.costumerental.app.database.DatabaseHelper;
+import com.costumerental.app.models.OutboxEntry;
+import com.costumerental.app.utils.NotificationHelper;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+// Offline outbox: writes that could not reach the server are stored in SQLite with an idempotency key
+// and replayed in batches when the network comes back. Each write is sent with the same key it was
+// first tried with, so a request that did reach the server before the connection dropped is not applied twice.
+public class OutboxReplayer {
+    
+    // Operations the outbox can replay
+    public static final String OP_CREATE_RESERVATION = "create_reservation";
+    public static final String OP_ADD_COSTUME = "add_costume";
+    public static final String OP_DELETE_COSTUME = "delete_costume";
+    
+    // Entries read per batch, and how many of them are on the wire at once
+    private static final int BATCH_SIZE = 20;
+    private static final int MAX_CONCURRENCY = 3;
+    
+    // Outcome of sending one entry
+    private enum Result { SENT, CONFLICT, RETRY }
+    
+    private static class Outcome {
+        final Result result;
+        final String message;
+        
+        Outcome(Result result, String message) {
+            this.result = result;
+            this.message = message;
+        }
+    }
+    
+    private static OutboxReplayer instance;
+    
+    private final Context context;
+    private final DatabaseHelper databaseHelper;
+    private final ApiService apiService;
+    private final Gson gson = ApiClient.getGson();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    
+    // The coordinator owns the database and the batch loop, workers only do network calls
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor();
+    private final ExecutorService workers = Executors.newFixedThreadPool(MAX_CONCURRENCY);
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    private final AtomicInteger session = new AtomicInteger(); // Bumped by clear, a replay of an older session stops
+    private boolean monitoring = false;
+    
+    private OutboxReplayer(Context context) {
+        this.context = context.getApplicationContext();
+        this.databaseHelper = DatabaseHelper.getInstance(this.context);
+        this.apiService = ApiClient.getApiService();
+    }
+    
+    public static synchronized OutboxReplayer getInstance(Context context) {
+        if (instance == null) {
+            instance = new OutboxReplayer(context);
+        }
+        return instance;
+    }
+    
+    // Fresh key for a write, to be sent with the first attempt and kept if the write is queued
+    public static String newIdempotencyKey() {
+        return UUID.randomUUID().toString();
+    }
+    
+    // Replay whenever a network becomes available, and once now for anything left from the last run
+    public synchronized void start() {
+        if (monitoring) {
+            return;
+        }
+        monitoring = true;
+        
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager != null) {
+            connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    flush();
+                }
+            });
+        }
+        flush();
+    }
+    
+    // Queue a write that failed for lack of network (token is the full "Bearer ..." header value)
+    public void enqueue(String operation, int targetId, final Map<String, Object> payload, String idempotencyKey,
+                        String token, String description) {
+        final OutboxEntry entry = new OutboxEntry();
+        entry.setOperation(operation);
+        entry.setTarget_id(targetId);
+        entry.setIdempotency_key(idempotencyKey);
+        entry.setAuth_token(token);
+        entry.setDescription(description);
+        entry.setCreated_at(System.currentTimeMillis());
+        
+        // Serialized on the coordinator too, callers are on the main thread
+        coordinator.execute(new Runnable() {
+            @Override
+            public void run() {
+                entry.setPayload(payload != null ? gson.toJson(payload) : null);
+                databaseHelper.addOutboxEntry(entry);
+            }
+        });
+    }
+    
+    // Drop every queued write (logout): the next user must not replay them with the previous user's token or be
+    // told how they went. A replay in progress stops after the entries already on the wire and reports nothing.
+    public void clear() {
+        session.incrementAndGet();
+        coordinator.execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.clearOutbox();
+            }
+        });
+    }
+    
+    // Send everything pending, repeated calls while a flush is queued are merged into one
+    public void flush() {
+        if (!flushQueued.compareAndSet(false, true)) {
+            return;
+        }
+        coordinator.execute(new Runnable() {
+            @Override
+            public void run() {
+                flushQueued.set(false);
+                replayPending();
+            }
+        });
+    }
+    
+    // Runs on the coordinator thread
+    private void replayPending() {
+        final int replaySession = session.get();
+        int sent = 0;
+        List<OutboxEntry> conflicts = new ArrayList<>();
+        
+        while (replaySession == session.get()) {
+            List<OutboxEntry> batch = databaseHelper.getPendingOutboxEntries(BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            
+            // Entries are independent writes, so a batch is sent concurrently
+            List<Future<Outcome>> futures = new ArrayList<>();
+            for (final OutboxEntry entry : batch) {
+                futures.add(workers.submit(() -> send(entry)));
+            }
+            
+            boolean stop = false;
+            for (int i = 0; i < batch.size(); i++) {
+                OutboxEntry entry = batch.get(i);
+                Outcome outcome = await(futures.get(i));
+                switch (outcome.result) {
+                    case SENT:
+                        databaseHelper.deleteOutboxEntry(entry.getId());
+                        sent++;
+                        break;
+                    case CONFLICT:
+                        databaseHelper.markOutboxConflict(entry.getId(), outcome.message);
+                        entry.setLast_error(outcome.message);
+                        conflicts.add(entry);
+                        break;
+                    default:
+                        databaseHelper.recordOutboxAttempt(entry.getId(), outcome.message);
+                        stop = true;
+                        break;
+                }
+            }
+            
+            // Network dropped again or the server is failing, wait for the next connectivity change
+            if (stop) {
+                break;
+            }
+        }
+        
+        if (replaySession == session.get() && (sent > 0 || !conflicts.isEmpty())) {
+            reportResult(sent, conflicts);
+        }
+    }
+    
+    private Outcome await(Future<Outcome> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return new Outcome(Result.RETRY, "Error: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Outcome(Result.RETRY, "Interrupted");
+        }
+    }
+    
+    // Runs on a worker thread
+    private Outcome send(OutboxEntry entry) {
+        Call<?> call;
+        switch (entry.getOperation()) {
+            case OP_CREATE_RESERVATION:
+                call = apiService.createReservation(entry.getAuth_token(), entry.getIdempotency_key(), toBody(entry.getPayload()));
+                break;
+            case OP_ADD_COSTUME:
+                call = apiService.addCostume(entry.getAuth_token(), entry.getIdempotency_key(), toBody(entry.getPayload()));
+                break;
+            case OP_DELETE_COSTUME:
+                call = apiService.deleteCostume(entry.getAuth_token(), entry.getIdempotency_key(), entry.getTarget_id());
+                break;
+            default:
+                return new Outcome(Result.CONFLICT, "Unknown operation " + entry.getOperation());
+        }
+        
+        try {
+            Response<?> response = call.execute();
+            if (response.isSuccessful()) {
+                return new Outcome(Result.SENT, null);
+            }
+            
+            String message = ApiClient.parseError(response).getDisplayMessage("Rejected by server");
+            if (response.code() == 404 && OP_DELETE_COSTUME.equals(entry.getOperation())) {
+                return new Outcome(Result.SENT, null); // Already gone, nothing left to do
+            }
+            // 409 with Retry-After: the first attempt with this key is still running on the server
+            if (response.code() >= 500 || (response.code() == 409 && response.headers().get("Retry-After") != null)) {
+                return new Outcome(Result.RETRY, message);
+            }
+            // Validation failure, booking conflict, expired session... replaying will not change the answer
+            return new Outcome(Result.CONFLICT, message);
+        } catch (IOException e) {
+            if (ApiClient.isConnectivityFailure(e)) {
+                return new Outcome(Result.RETRY, "Error: " + e.getMessage());
+            }
+            // The server answered but the answer could not be read, replaying would get the same answer
+            return new Outcome(Result.CONFLICT, "Unreadable answer: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Gson reports a body of the wrong shape with runtime exceptions, same as above
+            return new Outcome(Result.CONFLICT, "Unreadable answer: " + e.getMessage());
+        }
+    }
+    
+    // Rebuild the request body from the stored JSON; values stay JsonElements so numbers are sent exactly as stored
+    private Map<String, Object> toBody(String payload) {
+        Map<String, Object> body = new HashMap<>();
+        if (payload == null) {
+            return body;
+        }
+        JsonObject json = gson.fromJson(payload, JsonObject.class);
+        for (Map.Entry<String, JsonElement> field : json.entrySet()) {
+            body.put(field.getKey(), field.getValue());
+        }
+        return body;
+    }
+    
+    // Refresh cached lists and tell the user what happened to their offline changes
+    private void reportResult(final int sent, final List<OutboxEntry> conflicts) {
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                ReservationRepository.getInstance().invalidate();
+                new NotificationHelper(context).showOutboxResultNotification(sent, conflicts);
+            }
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package com.costumerental.app.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.costumerental.app.api.ApiClient;
+import com.costumerental.app.api.ApiService;
+import com.costumerental.app.api.JsonStreamDecoder;
+import com.costumerental.app.models.ApiResponse;
+import com.costumerental.app.models.Reservation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+// Shared reservation source: concurrent identical requests share one network call,
+// and a result younger than the freshness window is reused without a round trip.
+// Must be used from the main thread (Retrofit delivers callbacks there).
+public class ReservationRepository {
+    
+    // How long a fetched list is served without hitting the network again
+    private static final long FRESHNESS_WINDOW_MS = 30 * 1000;
+    
+    private static final String KEY_MY = "my:";
+    private static final String KEY_ALL = "all:";
+    
+    public interface ReservationsCallback {
+        void onSuccess(List<Reservation> reservations);
+        
+        void onError(String message);
+    }
+    
+    // Completion of a streamed scan, called on the main thread
+    public interface ScanCallback {
+        void onComplete(int count);
+        
+        void onError(String message);
+    }
+    
+    // Cached result and pending callers for one request
+    private static class Entry {
+        List<Reservation> data;
+        long fetchedAt;
+        Call<ApiResponse<List<Reservation>>> inFlight;
+        boolean stale; // invalidated while in flight, the next load starts a new call instead of joining it
+        List<ReservationsCallback> waiting = new ArrayList<>();
+    }
+    
+    private static ReservationRepository instance;
+    
+    private final ApiService apiService;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ExecutorService scanExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    
+    private ReservationRepository(ApiService apiService) {
+        this.apiService = apiService;
+    }
+    
+    public static synchronized ReservationRepository getInstance() {
+        if (instance == null) {
+            instance = new ReservationRepository(ApiClient.getApiService());
+        }
+        return instance;
+    }
+    
+    // Reservations of the logged in user
+    public void getMyReservations(String token, boolean forceRefresh, ReservationsCallback callback) {
+        load(KEY_MY + token, apiService.getMyReservations(token), forceRefresh, callback);
+    }
+    
+    // All reservations (admin)
+    public void getAllReservations(String token, boolean forceRefresh, ReservationsCallback callback) {
+        load(KEY_ALL + token, apiService.getAllReservations(token), forceRefresh, callback);
+    }
+    
+    // Stream all reservations (admin) through consumer in batches on a background thread,
+    // peak memory is one batch no matter how long the reservation history is
+    public void scanAllReservations(final String token, final int batchSize,
+                                    final JsonStreamDecoder.BatchConsumer<Reservation> consumer,
+                                    final ScanCallback callback) {
+        scanExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                String error = null;
+                int count = 0;
+                try {
+                    Response<ResponseBody> response = apiService.streamAllReservations(token).execute();
+                    if (response.isSuccessful() && response.body() != null) {
+                        count = JsonStreamDecoder.decodeDataArray(response.body(), ApiClient.getGson(),
+                                Reservation.class, batchSize, consumer);
+                    } else {
+                        if (response.errorBody() != null) {
+                            response.errorBody().close();
+                        }
+                        error = "Failed to load reservations";
+                    }
+                } catch (IOException | RuntimeException e) {
+                    error = "Error: " + e.getMessage();
+                }
+                
+                final String finalError = error;
+                final int finalCount = count;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (finalError != null) {
+                            callback.onError(finalError);
+                        } else {
+                            callback.onComplete(finalCount);
+                        }
+                    }
+                });
+            }
+        });
+    }
+    
+    // Forget cached lists so the next read goes to the network (after a write)
+    public void invalidate() {
+        for (Entry entry : entries.values()) {
+            entry.data = null;
+            entry.stale = entry.inFlight != null;
+        }
+    }
+    
+    // Drop everything, including in-flight calls (logout)
+    public void clear() {
+        for (Entry entry : entries.values()) {
+            if (entry.inFlight != null) {
+                entry.inFlight.cancel();
+            }
+        }
+        entries.clear();
+    }
+    
+    private void load(String key, Call<ApiResponse<List<Reservation>>> call, boolean forceRefresh, ReservationsCallback callback) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        
+        // Fresh enough, answer from memory
+        if (!forceRefresh && entry.data != null
+                && SystemClock.elapsedRealtime() - entry.fetchedAt < FRESHNESS_WINDOW_MS) {
+            callback.onSuccess(entry.data);
+            return;
+        }
+        
+        // Same request already on the wire, wait for it, unless it was sent before a write (stale) or the
+        // caller wants a new list: then it is cancelled and everyone waiting gets the new call's answer
+        entry.waiting.add(callback);
+        if (entry.inFlight != null) {
+            if (!forceRefresh && !entry.stale) {
+                return;
+            }
+            entry.inFlight.cancel();
+            entry.stale = false;
+        }
+        
+        final Entry target = entry;
+        target.inFlight = call;
+        call.enqueue(new Callback<ApiResponse<List<Reservation>>>() {
+            @Override
+            public void onResponse(Call<ApiResponse<List<Reservation>>> call, Response<ApiResponse<List<Reservation>>> response) {
+                if (call != target.inFlight) {
+                    return; // Replaced by a newer call, which answers the callers
+                }
+                if (response.isSuccessful() && response.body() != null && response.body().getData() != null) {
+                    List<Reservation> data = Collections.unmodifiableList(response.body().getData());
+                    if (!target.stale) {
+                        target.data = data;
+                        target.fetchedAt = SystemClock.elapsedRealtime();
+                    }
+                    for (ReservationsCallback waiting : finish(target)) {
+                        waiting.onSuccess(data);
+                    }
+                } else {
+                    for (ReservationsCallback waiting : finish(target)) {
+                        waiting.onError("Failed to load reservations");
+                    }
+                }
+            }
+            
+            @Override
+            public void onFailure(Call<ApiResponse<List<Reservation>>> call, Throwable t) {
+                if (call.isCanceled() || call != target.inFlight) {
+                    return;
+                }
+                for (ReservationsCallback waiting : finish(target)) {
+                    waiting.onError("Error: " + t.getMessage());
+                }
+            }
+        });
+    }
+    
+    // Mark the request done and hand back the callers to notify
+    private List<ReservationsCallback> finish(Entry entry) {
+        entry.inFlight = null;
+        entry.stale = false;
+        List<ReservationsCallback> waiting = entry.waiting;
+        entry.waiting = new ArrayList<>();
+        return waiting;
+    }
+}
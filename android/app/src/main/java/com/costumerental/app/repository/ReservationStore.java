@@ -0,0 +1,92 @@
+package com.costumerental.app.repository;
+
+import android.content.Context;
+
+import com.costumerental.app.database.DatabaseHelper;
+import com.costumerental.app.models.Reservation;
+import com.costumerental.app.utils.AppExecutors;
+
+import java.util.List;
+import java.util.Set;
+
+// Disk copy of reservations, filled from every fetch and update so screens can show the last known
+// list immediately and work offline. Runs on the disk executor, results arrive on the main thread.
+public class ReservationStore {
+    
+    // Receives stored reservations on the main thread
+    public interface Callback {
+        void onLoaded(List<Reservation> reservations);
+    }
+    
+    private static ReservationStore instance;
+    
+    private final DatabaseHelper databaseHelper;
+    private final AppExecutors executors;
+    
+    private ReservationStore(Context context) {
+        this.databaseHelper = DatabaseHelper.getInstance(context);
+        this.executors = AppExecutors.getInstance();
+    }
+    
+    public static synchronized ReservationStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReservationStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+    
+    // Upsert reservations from the server
+    public void save(final List<Reservation> reservations) {
+        executors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.saveReservations(reservations);
+            }
+        });
+    }
+    
+    // Drop stored reservations not in ids, after a full list has been saved batch by batch
+    public void retainOnly(final Set<Integer> ids) {
+        executors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.deleteReservationsExcept(ids);
+            }
+        });
+    }
+    
+    // Every stored reservation (admin)
+    public void loadAll(Callback callback) {
+        load(null, callback);
+    }
+    
+    // One user's stored reservations
+    public void loadForUser(int userId, Callback callback) {
+        load(userId, callback);
+    }
+    
+    // Forget everything stored (logout)
+    public void clear() {
+        executors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                databaseHelper.clearReservations();
+            }
+        });
+    }
+    
+    private void load(final Integer userId, final Callback callback) {
+        executors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<Reservation> reservations = databaseHelper.getReservations(userId);
+                executors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onLoaded(reservations);
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package com.costumerental.app.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Process-wide executors: disk I/O (SQLite), CPU-bound work (building lists to display) and the main thread.
+// Repositories do their work on the first two and hand finished results to the main thread.
+public class AppExecutors {
+    
+    // Disk tasks waiting to run; past this a background thread queuing one more waits for room,
+    // the main thread never does
+    private static final int DISK_IO_QUEUE_CAPACITY = 128;
+    
+    private static AppExecutors instance;
+    
+    private final Executor diskIO;
+    private final ExecutorService compute;
+    private final Executor mainThread;
+    
+    private AppExecutors() {
+        // One thread, so writes reach the database in the order they were queued. The queue is bounded
+        // so a stalled disk cannot pile up work (and the data it holds) without limit.
+        diskIO = new DiskExecutor(Executors.newSingleThreadExecutor(namedThreads("disk-io")), DISK_IO_QUEUE_CAPACITY);
+        // Leave a core for the main thread
+        int computeThreads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        compute = Executors.newFixedThreadPool(computeThreads, namedThreads("compute"));
+        
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mainHandler.post(command);
+            }
+        };
+    }
+    
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+    
+    public Executor diskIO() {
+        return diskIO;
+    }
+    
+    public Executor compute() {
+        return compute;
+    }
+    
+    public Executor mainThread() {
+        return mainThread;
+    }
+    
+    // Serial disk executor holding at most capacity waiting tasks from background threads: past that they
+    // wait for room, which slows a sync down to the speed of the disk. The main thread never waits, it stores
+    // a write or asks for a read in response to the user, so its tasks are queued beyond the bound (a handful
+    // at most). Dropping a write or running it on the caller, ahead of the queued ones, are not options.
+    // Everything goes through the same FIFO queue, so tasks run in the order they were accepted.
+    private static class DiskExecutor implements Executor {
+        
+        private final ExecutorService thread;
+        private final Semaphore room;
+        private volatile Thread runner; // The disk thread, it must not wait for itself to make room
+        
+        DiskExecutor(ExecutorService thread, int capacity) {
+            this.thread = thread;
+            this.room = new Semaphore(capacity);
+        }
+        
+        @Override
+        public void execute(final Runnable task) {
+            final boolean counted;
+            if (Looper.myLooper() == Looper.getMainLooper() || Thread.currentThread() == runner) {
+                counted = room.tryAcquire();
+            } else {
+                try {
+                    room.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting to queue a disk task", e);
+                }
+                counted = true;
+            }
+            
+            try {
+                thread.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        runner = Thread.currentThread();
+                        try {
+                            task.run();
+                        } finally {
+                            if (counted) {
+                                room.release();
+                            }
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                if (counted) {
+                    room.release();
+                }
+                throw e;
+            }
+        }
+    }
+    
+    private static ThreadFactory namedThreads(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setPriority(Thread.NORM_PRIORITY - 1); // Below the UI thread
+                return thread;
+            }
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.costumerental.app.utils;
+
+import java.util.Arrays;
+
+// Booked periods of one costume as a sorted list of disjoint day intervals (epoch days, see DateUtils).
+// Overlapping and back-to-back bookings are merged when the index is built, so a chain of bookings is one
+// interval and "available on a day" or "next free day" is a single binary search.
+public class AvailabilityIndex {
+    
+    private final int[] starts;
+    private final int[] ends;
+    private final int size;
+    
+    // Build from booked intervals, starts[i] to ends[i] with both days included, in any order
+    public AvailabilityIndex(int[] starts, int[] ends) {
+        int count = Math.min(starts.length, ends.length);
+        long[] intervals = new long[count];
+        int valid = 0;
+        for (int i = 0; i < count; i++) {
+            if (starts[i] == DateUtils.INVALID_DAY || ends[i] == DateUtils.INVALID_DAY || ends[i] < starts[i]) {
+                continue; // Malformed booking, it cannot block any day
+            }
+            // Pack start and end so one sort orders by start
+            intervals[valid++] = ((long) starts[i] << 32) | (ends[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(intervals, 0, valid);
+        
+        this.starts = new int[valid];
+        this.ends = new int[valid];
+        int merged = 0;
+        for (int i = 0; i < valid; i++) {
+            int start = (int) (intervals[i] >> 32);
+            int end = (int) intervals[i];
+            // Starts within or the day after the previous interval: same booked block
+            if (merged > 0 && (long) start <= (long) this.ends[merged - 1] + 1) {
+                this.ends[merged - 1] = Math.max(this.ends[merged - 1], end);
+            } else {
+                this.starts[merged] = start;
+                this.ends[merged] = end;
+                merged++;
+            }
+        }
+        this.size = merged;
+    }
+    
+    // True if no booking covers the day
+    public boolean isAvailableOn(int day) {
+        int block = blockStartingOnOrBefore(day);
+        return block < 0 || ends[block] < day;
+    }
+    
+    // First day on or after fromDay that no booking covers
+    public int nextAvailableDay(int fromDay) {
+        int block = blockStartingOnOrBefore(fromDay);
+        if (block < 0 || ends[block] < fromDay) {
+            return fromDay;
+        }
+        // Blocks are merged, so the day after one is always free
+        return ends[block] + 1;
+    }
+    
+    // True if no booking covers any day from startDay to endDay (both included)
+    public boolean isFree(int startDay, int endDay) {
+        int block = blockStartingOnOrBefore(endDay);
+        return block < 0 || ends[block] < startDay;
+    }
+    
+    // Earliest day on or after fromDay that starts a run of at least days free days
+    public int earliestFreeStart(int fromDay, int days) {
+        int start = nextAvailableDay(fromDay);
+        int next = blockStartingOnOrBefore(start) + 1; // First block after start
+        // Walk the gaps between blocks until one is long enough
+        while (next < size && starts[next] - start < days) {
+            start = ends[next] + 1;
+            next++;
+        }
+        return start;
+    }
+    
+    // Number of separate booked blocks
+    public int size() {
+        return size;
+    }
+    
+    // Index of the last block starting on or before day, -1 if none
+    private int blockStartingOnOrBefore(int day) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= day) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+}
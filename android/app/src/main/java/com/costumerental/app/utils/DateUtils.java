@@ -0,0 +1,88 @@
+package com.costumerental.app.utils;
+
+import java.util.Calendar;
+
+// Compact date handling: "yyyy-MM-dd" dates are kept as epoch days (days since 1970-01-01)
+// so comparisons are int compares and no Date/Calendar objects are created per row
+public class DateUtils {
+    
+    // Returned for null or malformed dates
+    public static final int INVALID_DAY = Integer.MIN_VALUE;
+    
+    private DateUtils() {
+    }
+    
+    // Parse "yyyy-MM-dd" (anything after the first 10 characters, e.g. a time part, is ignored)
+    public static int parseEpochDay(String date) {
+        if (date == null || date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return INVALID_DAY;
+        }
+        int year = parseDigits(date, 0, 4);
+        int month = parseDigits(date, 5, 7);
+        int day = parseDigits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return INVALID_DAY;
+        }
+        return toEpochDay(year, month, day);
+    }
+    
+    // Format an epoch day as "yyyy-MM-dd"
+    public static String formatEpochDay(int epochDay) {
+        if (epochDay == INVALID_DAY) {
+            return null;
+        }
+        // Civil-from-days conversion (proleptic Gregorian calendar)
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        
+        char[] out = new char[10];
+        writeDigits(out, 0, year, 4);
+        out[4] = '-';
+        writeDigits(out, 5, month, 2);
+        out[7] = '-';
+        writeDigits(out, 8, day, 2);
+        return new String(out);
+    }
+    
+    // Epoch day of a calendar date (month is 1-12)
+    public static int toEpochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+    
+    // Today's epoch day in the device time zone
+    public static int todayEpochDay() {
+        Calendar today = Calendar.getInstance();
+        return toEpochDay(today.get(Calendar.YEAR), today.get(Calendar.MONTH) + 1, today.get(Calendar.DAY_OF_MONTH));
+    }
+    
+    private static int parseDigits(String s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    private static void writeDigits(char[] out, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
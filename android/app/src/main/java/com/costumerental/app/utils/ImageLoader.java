@@ -0,0 +1,281 @@
+package com.costumerental.app.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+
+import com.costumerental.app.api.ApiClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+// Loads costume images into ImageViews. Downloads go through a disk LRU cache that also serves them
+// offline, bitmaps are decoded down to the requested size and kept in a memory LRU cache.
+// Views asking for the same image share one download, and a view that is recycled or given another
+// image drops its request (the download is cancelled once nobody waits for it). Rows about to scroll
+// into view can be warmed with prefetch(). Main thread only.
+public class ImageLoader {
+    
+    private static final String CACHE_DIR_NAME = "image_cache";
+    private static final long DISK_CACHE_BYTES = 50L * 1024 * 1024; // 50 MB
+    
+    // Images come without cache headers; they are reused this long before being checked again
+    private static final int MAX_AGE_DAYS = 7;
+    
+    // Share of the memory cache prefetched bitmaps may take, the rest keeps what was already shown
+    private static final int PREFETCH_SHARE = 4;
+    
+    private static ImageLoader instance;
+    
+    private final OkHttpClient client;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final Map<String, Load> inFlight = new HashMap<>();
+    private final AppExecutors executors;
+    
+    // One download and decode, with the views waiting for it
+    private static class Load {
+        final String key;
+        final List<ImageView> targets = new ArrayList<>();
+        Call call;
+        boolean cacheOnly; // Prefetch that may not use the network
+        
+        Load(String key) {
+            this.key = key;
+        }
+    }
+    
+    private ImageLoader(Context context) {
+        File cacheDir = new File(context.getCacheDir(), CACHE_DIR_NAME);
+        client = ApiClient.createImageClient(new Cache(cacheDir, DISK_CACHE_BYTES), new Interceptor() {
+            @NonNull
+            @Override
+            public Response intercept(@NonNull Chain chain) throws IOException {
+                Response response = chain.proceed(chain.request());
+                if (response.header("Cache-Control") != null) {
+                    return response;
+                }
+                return response.newBuilder()
+                        .header("Cache-Control", "public, max-age=" + TimeUnit.DAYS.toSeconds(MAX_AGE_DAYS))
+                        .build();
+            }
+        });
+        
+        // An eighth of the heap, counted in KB
+        int maxKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        memoryCache = new LruCache<String, Bitmap>(maxKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+        executors = AppExecutors.getInstance();
+    }
+    
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+    
+    // Show an image (file name or URL, see ApiClient.resolveImageUrl) decoded to about width x height pixels
+    public void load(String image, ImageView view, int width, int height) {
+        cancel(view);
+        HttpUrl url = ApiClient.resolveImageUrl(image);
+        if (url == null) {
+            view.setImageDrawable(null);
+            return;
+        }
+        
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        String key = url + "@" + width + "x" + height;
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            view.setImageBitmap(cached);
+            return;
+        }
+        
+        view.setImageDrawable(null);
+        view.setTag(key);
+        Load load = inFlight.get(key);
+        if (load != null && load.cacheOnly) {
+            // Prefetched from disk only, the view needs the network if the image is not there
+            inFlight.remove(key);
+            load.call.cancel();
+            load = null;
+        }
+        if (load == null) {
+            load = new Load(key);
+            inFlight.put(key, load);
+            start(load, url, width, height, false);
+        }
+        load.targets.add(view);
+    }
+    
+    // Download and decode an image into the memory cache before a view asks for it. With cacheOnly
+    // it is only read from the disk cache. Returns the key to cancel it with, null if there is nothing to do.
+    public String prefetch(String image, int width, int height, boolean cacheOnly) {
+        HttpUrl url = ApiClient.resolveImageUrl(image);
+        if (url == null) {
+            return null;
+        }
+        width = Math.max(width, 1);
+        height = Math.max(height, 1);
+        String key = url + "@" + width + "x" + height;
+        if (inFlight.containsKey(key) || memoryCache.get(key) != null) {
+            return null;
+        }
+        
+        Load load = new Load(key);
+        load.cacheOnly = cacheOnly;
+        inFlight.put(key, load);
+        start(load, url, width, height, cacheOnly);
+        return key;
+    }
+    
+    // Drop a prefetch that is no longer needed, unless a view is now waiting for it
+    public void cancelPrefetch(String key) {
+        Load load = inFlight.get(key);
+        if (load != null && load.targets.isEmpty()) {
+            inFlight.remove(key);
+            load.call.cancel();
+        }
+    }
+    
+    // How many width x height bitmaps may be prefetched without pushing shown images out of the memory cache
+    public int prefetchLimit(int width, int height) {
+        int bitmapKb = Math.max(1, Math.max(width, 1) * Math.max(height, 1) * 2 / 1024); // RGB_565, see decode
+        return memoryCache.maxSize() / PREFETCH_SHARE / bitmapKb;
+    }
+    
+    // Drop the view's pending request, if any (view recycled)
+    public void cancel(ImageView view) {
+        Object key = view.getTag();
+        if (!(key instanceof String)) {
+            return;
+        }
+        view.setTag(null);
+        Load load = inFlight.get(key);
+        if (load != null && load.cacheOnly) {
+            // Prefetched from disk only, the view needs the network if the image is not there
+            inFlight.remove(key);
+            load.call.cancel();
+            load = null;
+        }
+        if (load == null) {
+            return;
+        }
+        load.targets.remove(view);
+        if (load.targets.isEmpty()) {
+            inFlight.remove(key);
+            load.call.cancel();
+        }
+    }
+    
+    private void start(final Load load, final HttpUrl url, final int width, final int height, final boolean cacheOnly) {
+        Request.Builder request = new Request.Builder().url(url);
+        if (cacheOnly) {
+            request.cacheControl(CacheControl.FORCE_CACHE);
+        }
+        load.call = client.newCall(request.build());
+        load.call.enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                Bitmap bitmap = null;
+                try (ResponseBody body = response.body()) {
+                    if (response.isSuccessful() && body != null) {
+                        bitmap = decode(body.bytes(), width, height);
+                    }
+                } catch (IOException e) {
+                    Log.d("ImageLoader", "Failed to read " + url + ": " + e.getMessage());
+                }
+                deliver(load, bitmap);
+            }
+            
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                if (call.isCanceled()) {
+                    return;
+                }
+                if (cacheOnly) {
+                    deliver(load, null);
+                    return;
+                }
+                // Offline: an expired copy on disk is better than no image
+                executors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (inFlight.get(load.key) == load) {
+                            start(load, url, width, height, true);
+                        }
+                    }
+                });
+            }
+        });
+    }
+    
+    // Hand a decoded bitmap (null on failure) to the views still waiting for it
+    private void deliver(final Load load, final Bitmap bitmap) {
+        executors.mainThread().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (inFlight.get(load.key) != load) {
+                    return; // Cancelled meanwhile
+                }
+                inFlight.remove(load.key);
+                if (bitmap != null) {
+                    memoryCache.put(load.key, bitmap);
+                }
+                for (ImageView view : load.targets) {
+                    if (load.key.equals(view.getTag())) {
+                        view.setTag(null);
+                        if (bitmap != null) {
+                            view.setImageBitmap(bitmap);
+                        }
+                    }
+                }
+            }
+        });
+    }
+    
+    // Decode with the largest power-of-two downsampling that keeps the image at least width x height
+    private static Bitmap decode(byte[] data, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null; // Not an image
+        }
+        
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= width && options.outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565; // Thumbnails, half the memory of ARGB_8888
+        return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+    }
+}
@@ -0,0 +1,119 @@
+package com.costumerental.app.utils;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Holds the list an adapter shows. A new list is compared with the shown one on the compute executor
+// and only the rows that were inserted, removed, moved or changed are notified, with the payload from
+// itemCallback for a partial rebind. Only the latest submitted list is shown. Main thread only.
+public class ListDiffer<T> {
+    
+    // Builds the new list on the compute executor, before it is diffed
+    public interface Builder<T> {
+        List<T> build();
+    }
+    
+    private final RecyclerView.Adapter<?> adapter;
+    private final DiffUtil.ItemCallback<T> itemCallback;
+    private final AppExecutors executors;
+    private List<T> list;
+    private int generation; // Bumped by each new list, diffs started before it are dropped
+    private int removals; // Bumped by remove(), a diff against the list before it is computed again
+    
+    public ListDiffer(RecyclerView.Adapter<?> adapter, DiffUtil.ItemCallback<T> itemCallback, List<T> list) {
+        this.adapter = adapter;
+        this.itemCallback = itemCallback;
+        this.executors = AppExecutors.getInstance();
+        this.list = list;
+    }
+    
+    // The list shown now
+    public List<T> getList() {
+        return list;
+    }
+    
+    // Show a list that cannot be compared row by row (too large to read in full), every row is redrawn
+    public void replace(List<T> newList) {
+        generation++;
+        list = newList;
+        adapter.notifyDataSetChanged();
+    }
+    
+    // Show a new list once it has been compared with the shown one; onCommitted (may be null) runs after
+    public void submit(final List<T> newList, final Runnable onCommitted) {
+        submit(new Builder<T>() {
+            @Override
+            public List<T> build() {
+                return newList;
+            }
+        }, onCommitted);
+    }
+    
+    // Same, with the new list built off the main thread (row models formatted from the data)
+    public void submit(final Builder<T> builder, final Runnable onCommitted) {
+        final int diffGeneration = ++generation;
+        final int diffRemovals = removals;
+        // Snapshot, the shown list may change on the main thread while the diff runs
+        final List<T> oldList = new ArrayList<>(list);
+        
+        executors.compute().execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<T> newList = builder.build();
+                final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                    @Override
+                    public int getOldListSize() {
+                        return oldList.size();
+                    }
+                    
+                    @Override
+                    public int getNewListSize() {
+                        return newList.size();
+                    }
+                    
+                    @Override
+                    public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                        return itemCallback.areItemsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+                    }
+                    
+                    @Override
+                    public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                        return itemCallback.areContentsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+                    }
+                    
+                    @Override
+                    public Object getChangePayload(int oldPosition, int newPosition) {
+                        return itemCallback.getChangePayload(oldList.get(oldPosition), newList.get(newPosition));
+                    }
+                });
+                executors.mainThread().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (diffGeneration != generation) {
+                            return; // A newer list was submitted meanwhile
+                        }
+                        if (diffRemovals != removals) {
+                            submit(newList, onCommitted); // The shown list changed under the diff
+                            return;
+                        }
+                        list = newList;
+                        result.dispatchUpdatesTo(adapter);
+                        if (onCommitted != null) {
+                            onCommitted.run();
+                        }
+                    }
+                });
+            }
+        });
+    }
+    
+    // Remove a row from the shown list right away
+    public void remove(int position) {
+        removals++;
+        list.remove(position);
+        adapter.notifyItemRemoved(position);
+    }
+}
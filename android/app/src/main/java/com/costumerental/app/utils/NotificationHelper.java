@@ -11,6 +11,7 @@ import androidx.core.app.NotificationCompat;
 
 import com.costumerental.app.AdminReservationsActivity;
 import com.costumerental.app.ClientDashboardActivity;
+import com.costumerental.app.models.OutboxEntry;
 import com.costumerental.app.models.Reservation;
 
 import java.text.ParseException;
@@ -27,6 +28,7 @@ public class NotificationHelper {
     private static final String CHANNEL_NAME = "Reservation Notifications";
     private static final int NOTIFICATION_ID_DEADLINE = 1001;
     private static final int NOTIFICATION_ID_STATUS = 1002;
+    private static final int NOTIFICATION_ID_OUTBOX = 1003;
     
     private Context context;
     private NotificationManager notificationManager;
@@ -245,5 +247,30 @@ public class NotificationHelper {
         
         notificationManager.notify(99999, builder.build());
     }
+    
+    // Show what happened to writes made offline once they were replayed
+    public void showOutboxResultNotification(int sentCount, List<OutboxEntry> conflicts) {
+        String title;
+        StringBuilder message = new StringBuilder();
+        if (conflicts.isEmpty()) {
+            title = "Offline changes sent";
+            message.append(sentCount).append(" change(s) made offline were sent.");
+        } else {
+            title = "Some offline changes were refused";
+            message.append(sentCount).append(" change(s) sent, ").append(conflicts.size()).append(" refused:");
+            for (OutboxEntry entry : conflicts) {
+                message.append("\n").append(entry.getDescription()).append(": ").append(entry.getLast_error());
+            }
+        }
+        
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+            .setSmallIcon(conflicts.isEmpty() ? android.R.drawable.ic_dialog_info : android.R.drawable.ic_dialog_alert)
+            .setContentTitle(title)
+            .setContentText(message.toString())
+            .setStyle(new NotificationCompat.BigTextStyle().bigText(message.toString()))
+            .setPriority(conflicts.isEmpty() ? NotificationCompat.PRIORITY_DEFAULT : NotificationCompat.PRIORITY_HIGH)
+            .setAutoCancel(true);
+        
+        notificationManager.notify(NOTIFICATION_ID_OUTBOX, builder.build());
+    }
 }
-
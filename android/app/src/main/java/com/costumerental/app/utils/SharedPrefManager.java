@@ -13,6 +13,7 @@ public class SharedPrefManager {
     private static final String KEY_USER_NAME = "user_name";
     private static final String KEY_USER_EMAIL = "user_email";
     private static final String KEY_USER_ROLE = "user_role";
+    private static final String KEY_LAST_EVENT_ID = "last_event_id";
     
     private static SharedPrefManager instance;
     private Context context;
@@ -46,6 +47,12 @@ public class SharedPrefManager {
         return sharedPreferences.getString(KEY_TOKEN, null);
     }
     
+    // Get user ID (-1 when logged out)
+    public int getUserId() {
+        SharedPreferences sharedPreferences = context.getSharedPreferences(SHARED_PREF_NAME, Context.MODE_PRIVATE);
+        return sharedPreferences.getInt(KEY_USER_ID, -1);
+    }
+    
     // Get user role
     public String getUserRole() {
         SharedPreferences sharedPreferences = context.getSharedPreferences(SHARED_PREF_NAME, Context.MODE_PRIVATE);
@@ -106,6 +113,20 @@ public class SharedPrefManager {
         saveSeenReservationIds(seenIds);
     }
     
+    // Save the id of the last push event received (resume point of the event stream)
+    public void saveLastEventId(String eventId) {
+        SharedPreferences sharedPreferences = context.getSharedPreferences(SHARED_PREF_NAME, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putString(KEY_LAST_EVENT_ID, eventId);
+        editor.apply();
+    }
+    
+    // Get the id of the last push event received
+    public String getLastEventId() {
+        SharedPreferences sharedPreferences = context.getSharedPreferences(SHARED_PREF_NAME, Context.MODE_PRIVATE);
+        return sharedPreferences.getString(KEY_LAST_EVENT_ID, null);
+    }
+    
     // Logout
     public void logout() {
         SharedPreferences sharedPreferences = context.getSharedPreferences(SHARED_PREF_NAME, Context.MODE_PRIVATE);
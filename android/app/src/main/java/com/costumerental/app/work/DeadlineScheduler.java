@@ -0,0 +1,87 @@
+package com.costumerental.app.work;
+
+import android.content.Context;
+
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+
+import com.costumerental.app.utils.DateUtils;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+// Schedules DeadlineWorker. Each run is a one-off request that schedules the next one, so the period
+// follows the nearest deadline: every morning while one is inside the reminder window, otherwise
+// the morning it enters the window, and only an occasional sync while nothing is coming up.
+public class DeadlineScheduler {
+    
+    private static final String WORK_NAME = "deadline_sync";
+    
+    // Reminders are shown for deadlines up to this many days ahead, and on the day itself
+    public static final int REMINDER_WINDOW_DAYS = 3;
+    
+    // Local hour at which reminders are shown
+    private static final int REMINDER_HOUR = 9;
+    
+    // Longest wait between runs, picks up reservations made on another device
+    private static final long MAX_IDLE_DELAY_MS = TimeUnit.DAYS.toMillis(3);
+    
+    private DeadlineScheduler() {
+    }
+    
+    // Make sure a run is scheduled, an already scheduled one is kept
+    public static void start(Context context) {
+        enqueue(context, 0, ExistingWorkPolicy.KEEP);
+    }
+    
+    // Schedule the run after this one (called from DeadlineWorker, so the running work must not be replaced)
+    static void scheduleNext(Context context, int nearestDeadlineDay) {
+        long delayMs = computeDelayMs(Calendar.getInstance(), nearestDeadlineDay);
+        enqueue(context, delayMs, ExistingWorkPolicy.APPEND_OR_REPLACE);
+    }
+    
+    // Stop reminders (on logout)
+    public static void cancel(Context context) {
+        WorkManager.getInstance(context).cancelUniqueWork(WORK_NAME);
+    }
+    
+    private static void enqueue(Context context, long delayMs, ExistingWorkPolicy policy) {
+        // Syncing is never urgent enough to use mobile data or a low battery
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(DeadlineWorker.class)
+                .setConstraints(constraints)
+                .setInitialDelay(delayMs, TimeUnit.MILLISECONDS)
+                .build();
+        
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, policy, request);
+    }
+    
+    // Delay until the next run: the next reminder hour once the nearest deadline is inside the window,
+    // the reminder hour of the day it enters the window otherwise, never more than MAX_IDLE_DELAY_MS
+    static long computeDelayMs(Calendar now, int nearestDeadlineDay) {
+        if (nearestDeadlineDay == DateUtils.INVALID_DAY) {
+            return MAX_IDLE_DELAY_MS;
+        }
+        
+        int today = DateUtils.toEpochDay(now.get(Calendar.YEAR), now.get(Calendar.MONTH) + 1, now.get(Calendar.DAY_OF_MONTH));
+        int runDay = Math.max(today, nearestDeadlineDay - REMINDER_WINDOW_DAYS);
+        
+        Calendar next = (Calendar) now.clone();
+        next.set(Calendar.HOUR_OF_DAY, REMINDER_HOUR);
+        next.set(Calendar.MINUTE, 0);
+        next.set(Calendar.SECOND, 0);
+        next.set(Calendar.MILLISECOND, 0);
+        next.add(Calendar.DAY_OF_MONTH, runDay - today);
+        if (!next.after(now)) {
+            next.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return Math.min(next.getTimeInMillis() - now.getTimeInMillis(), MAX_IDLE_DELAY_MS);
+    }
+}
@@ -0,0 +1,88 @@
+package com.costumerental.app.work;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.costumerental.app.api.ApiClient;
+import com.costumerental.app.api.ApiService;
+import com.costumerental.app.database.DatabaseHelper;
+import com.costumerental.app.models.ApiResponse;
+import com.costumerental.app.models.Reservation;
+import com.costumerental.app.utils.DateUtils;
+import com.costumerental.app.utils.NotificationHelper;
+import com.costumerental.app.utils.SharedPrefManager;
+
+import java.io.IOException;
+import java.util.List;
+
+import retrofit2.Response;
+
+// Background run scheduled by DeadlineScheduler: pulls reservations changed since the last sync into
+// the local table, shows deadline reminders from the local copy, then schedules the next run
+public class DeadlineWorker extends Worker {
+    
+    private static final String TAG = "DeadlineWorker";
+    
+    public DeadlineWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+    
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        String token = SharedPrefManager.getInstance(context).getToken();
+        if (token == null || token.isEmpty()) {
+            return Result.success(); // Logged out, nothing to remind about and no next run
+        }
+        
+        DatabaseHelper databaseHelper = DatabaseHelper.getInstance(context);
+        syncReservations(databaseHelper, "Bearer " + token);
+        
+        // Evaluated against the local copy, so reminders still show when the sync failed
+        int nearestDeadlineDay = notifyUpcomingDeadlines(context, databaseHelper, false);
+        DeadlineScheduler.scheduleNext(context, nearestDeadlineDay);
+        return Result.success();
+    }
+    
+    // Delta sync of the user's reservations, the cursor only moves forward when the changes were saved
+    private void syncReservations(DatabaseHelper databaseHelper, String token) {
+        String cursor = databaseHelper.getSyncCursor(DatabaseHelper.SYNC_KEY_MY_RESERVATIONS);
+        try {
+            Response<ApiResponse<List<Reservation>>> response = ApiClient.getApiService()
+                    .getMyReservationsSince(token, cursor).execute();
+            if (!response.isSuccessful() || response.body() == null || response.body().getData() == null) {
+                Log.d(TAG, "Sync failed (Code: " + response.code() + ")");
+                return;
+            }
+            
+            databaseHelper.saveReservations(response.body().getData());
+            String nextCursor = response.headers().get(ApiService.HEADER_SYNC_CURSOR);
+            if (nextCursor != null) {
+                databaseHelper.saveSyncCursor(DatabaseHelper.SYNC_KEY_MY_RESERVATIONS, nextCursor);
+            }
+        } catch (IOException e) {
+            Log.d(TAG, "Sync failed: " + e.getMessage());
+        }
+    }
+    
+    // Show reminders for deadlines inside the window. Background runs remind at most once per reservation
+    // per day; remindAgain (the dashboard being opened) also shows the ones already shown today, as the
+    // dashboard always did. Returns the nearest upcoming deadline (epoch day) for scheduling the next run.
+    public static int notifyUpcomingDeadlines(Context context, DatabaseHelper databaseHelper, boolean remindAgain) {
+        int today = DateUtils.todayEpochDay();
+        List<Reservation> due = databaseHelper.getDeadlinesToNotify(today,
+                today + DeadlineScheduler.REMINDER_WINDOW_DAYS, remindAgain ? today + 1 : today);
+        if (!due.isEmpty()) {
+            new NotificationHelper(context).checkUpcomingDeadlines(due);
+            for (Reservation reservation : due) {
+                databaseHelper.markDeadlineNotified(reservation.getId(), today);
+            }
+        }
+        return databaseHelper.getNearestDeadlineDay(today);
+    }
+}
@@ -0,0 +1,41 @@
+package com.costumerental.app.api;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import javax.net.ssl.SSLHandshakeException;
+
+import okhttp3.internal.http2.ErrorCode;
+import okhttp3.internal.http2.StreamResetException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ApiClientTest {
+    
+    @Test
+    public void failuresWithoutAnAnswerAreRetryable() {
+        assertTrue(ApiClient.isConnectivityFailure(new UnknownHostException("api.example.com")));
+        assertTrue(ApiClient.isConnectivityFailure(new SocketTimeoutException("timeout")));
+        assertTrue(ApiClient.isConnectivityFailure(new IOException("unexpected end of stream on http://api.example.com/...")));
+        assertTrue(ApiClient.isConnectivityFailure(new ProtocolException("unexpected end of stream")));
+        assertTrue(ApiClient.isConnectivityFailure(new EOFException("End of input at line 1 column 4000")));
+        assertTrue(ApiClient.isConnectivityFailure(new StreamResetException(ErrorCode.CANCEL)));
+        assertTrue(ApiClient.isConnectivityFailure(new SSLHandshakeException("Connection closed by peer")));
+    }
+    
+    @Test
+    public void answersThatCannotBeDecodedAreNot() {
+        assertFalse(ApiClient.isConnectivityFailure(new MalformedJsonException("Unterminated object")));
+        assertFalse(ApiClient.isConnectivityFailure(new JsonSyntaxException("Expected BEGIN_OBJECT")));
+        assertFalse(ApiClient.isConnectivityFailure(new IllegalStateException("Expected BEGIN_OBJECT but was STRING")));
+    }
+}
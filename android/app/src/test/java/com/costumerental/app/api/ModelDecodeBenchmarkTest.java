@@ -0,0 +1,147 @@
+package com.costumerental.app.api;
+
+import com.costumerental.app.models.ApiResponse;
+import com.costumerental.app.models.BatchResult;
+import com.costumerental.app.models.Costume;
+import com.costumerental.app.models.CostumeChanges;
+import com.costumerental.app.models.Reservation;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+// Decoding with the hand-written adapters: no model goes through reflection, and how fast a 10k row costume
+// list decodes, and how many bytes each decode allocates, compared with Gson's reflective adapters.
+// Numbers are printed as key=value lines to compare between builds, not asserted: on the JVM both paths are
+// close once JIT-compiled, the gain the adapters are for is ART's first use without reflection.
+public class ModelDecodeBenchmarkTest {
+    
+    private static final int PAGE_ROWS = 10000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 10;
+    
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+    
+    @Test
+    public void everyResponseTypeHasAHandWrittenAdapter() {
+        Type[] types = {
+                TypeToken.getParameterized(ApiResponse.class, TypeToken.getParameterized(List.class, Costume.class).getType()).getType(),
+                TypeToken.getParameterized(ApiResponse.class, CostumeChanges.class).getType(),
+                TypeToken.getParameterized(ApiResponse.class, BatchResult.class).getType(),
+                TypeToken.getParameterized(ApiResponse.class, Reservation.class).getType(),
+                TypeToken.getParameterized(ApiResponse.class, Void.class).getType(),
+                CostumeChanges.class,
+                BatchResult.class,
+                Reservation.class,
+                Costume.class,
+                Void.class,
+        };
+        for (Type type : types) {
+            TypeAdapter<?> adapter = gson.getAdapter(TypeToken.get(type));
+            assertFalse(type + " uses " + adapter.getClass().getName(),
+                    adapter.getClass().getName().contains("Reflective"));
+        }
+    }
+    
+    @Test
+    public void decodesCostumeChanges() {
+        String json = "{\"success\":true,\"data\":{\"costumes\":[" + costumeJson(7) + "],"
+                + "\"deleted_ids\":[3,4],\"cursor\":\"2026-10-17 09:30:00\"}}";
+        ApiResponse<CostumeChanges> response = gson.fromJson(json,
+                TypeToken.getParameterized(ApiResponse.class, CostumeChanges.class).getType());
+        
+        CostumeChanges changes = response.getData();
+        assertEquals(1, changes.getCostumes().size());
+        assertEquals(7, changes.getCostumes().get(0).getId());
+        assertEquals(2, changes.getDeleted_ids().size());
+        assertEquals(4, (int) changes.getDeleted_ids().get(1));
+        assertEquals("2026-10-17 09:30:00", changes.getCursor());
+    }
+    
+    @Test
+    public void decodesBatchResult() {
+        String json = "{\"success\":true,\"data\":{\"updated\":[{\"id\":1,\"costume_id\":7,\"user_id\":2,"
+                + "\"start_date\":\"2026-10-20\",\"end_date\":\"2026-10-22\",\"status\":\"approved\"}],"
+                + "\"failed\":[{\"id\":2,\"message\":\"Reservation not found\",\"extra\":[1]}]}}";
+        ApiResponse<BatchResult> response = gson.fromJson(json,
+                TypeToken.getParameterized(ApiResponse.class, BatchResult.class).getType());
+        
+        BatchResult result = response.getData();
+        assertEquals(1, result.getUpdated().size());
+        assertEquals("approved", result.getUpdated().get(0).getStatus());
+        assertEquals(1, result.getFailed().size());
+        assertEquals(2, result.getFailed().get(0).getId());
+        assertEquals("Reservation not found", result.getFailed().get(0).getMessage());
+    }
+    
+    @Test
+    public void skipsDataOfVoidResponse() {
+        ApiResponse<Void> response = gson.fromJson("{\"success\":true,\"message\":\"Deleted\",\"data\":{\"id\":1}}",
+                TypeToken.getParameterized(ApiResponse.class, Void.class).getType());
+        assertEquals("Deleted", response.getMessage());
+        assertNull(response.getData());
+    }
+    
+    @Test
+    public void costumePageBenchmark() {
+        StringBuilder page = new StringBuilder("{\"success\":true,\"data\":[");
+        for (int i = 1; i <= PAGE_ROWS; i++) {
+            page.append(i > 1 ? "," : "").append(costumeJson(i));
+        }
+        String json = page.append("],\"next_cursor\":null}").toString();
+        Type type = TypeToken.getParameterized(ApiResponse.class,
+                TypeToken.getParameterized(List.class, Costume.class).getType()).getType();
+        
+        Gson reflectiveGson = new Gson();
+        // Both warmed up before either is timed, so neither pays for the JIT compiling the shared JsonReader
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            decode(gson, json, type);
+            decode(reflectiveGson, json, type);
+        }
+        report("hand_written", gson, json, type);
+        report("reflective", reflectiveGson, json, type);
+    }
+    
+    // Decode the page ROUNDS times, checking every round got every row, and print rows/s and bytes allocated
+    // by this thread per decode (the JSON string is built beforehand, so this is the decoder's own garbage)
+    private static void report(String path, Gson gson, String json, Type type) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            assertEquals(PAGE_ROWS, decode(gson, json, type).getData().size());
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        
+        System.out.printf(Locale.ROOT, "benchmark=costume_decode path=%s rows=%d rows_per_s=%.0f bytes_per_decode=%d bytes_per_row=%d%n",
+                path, PAGE_ROWS, (double) PAGE_ROWS * ROUNDS / (elapsed / 1e9), allocated / ROUNDS, allocated / ROUNDS / PAGE_ROWS);
+    }
+    
+    private static ApiResponse<List<Costume>> decode(Gson gson, String json, Type type) {
+        return gson.fromJson(json, type);
+    }
+    
+    // A costume as the API sends it, with fields the app does not read
+    private static String costumeJson(int id) {
+        return "{\"id\":" + id + ",\"name\":\"Costume " + id + "\",\"size\":\"M\",\"price\":25.5,"
+                + "\"image\":\"https://example.com/" + id + ".jpg\",\"is_available\":true,"
+                + "\"next_available_date\":null,\"booked_ranges\":[{\"start_date\":\"2026-10-20\",\"end_date\":\"2026-10-22\"}],"
+                + "\"created_at\":\"2026-01-01T00:00:00.000000Z\",\"updated_at\":\"2026-01-01T00:00:00.000000Z\",\"deleted_at\":null}";
+    }
+}
@@ -0,0 +1,127 @@
+package com.costumerental.app.database;
+
+import android.content.Context;
+
+import com.costumerental.app.models.BookedRange;
+import com.costumerental.app.models.Costume;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+// Rows/s of the catalog write path (saveCostumePage, the only way a full catalog is stored) for catalogs of
+// 1k, 10k and 100k costumes: first load, the same pages again (nothing changed, nothing written), and pages
+// where every row changed. Runs on Robolectric's SQLite; numbers are printed as key=value lines to compare
+// between builds, only the stored result is asserted.
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class CostumeWriteBenchmarkTest {
+    
+    private static final String DATABASE_NAME = "costume_write_benchmark.db";
+    private static final int PAGE_SIZE = 50;
+    private static final int[] CATALOG_SIZES = {1000, 10000, 100000};
+    
+    private Context context;
+    private DatabaseHelper databaseHelper;
+    
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        openDatabase();
+    }
+    
+    @After
+    public void tearDown() {
+        databaseHelper.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+    
+    @Test
+    public void catalogWriteBenchmark() {
+        // One untimed pass first, so the smallest size is not measured while the JIT is still compiling
+        rowsPerSecond(catalog(CATALOG_SIZES[0], 25.0), CATALOG_SIZES[0]);
+        
+        for (int rows : CATALOG_SIZES) {
+            // Each size starts from an empty database
+            tearDown();
+            openDatabase();
+            
+            List<List<Costume>> catalog = catalog(rows, 25.0);
+            double firstLoad = rowsPerSecond(catalog, rows);
+            assertEquals(rows, databaseHelper.getCostumeCount(null));
+            
+            double unchanged = rowsPerSecond(catalog, rows);
+            assertEquals(rows, databaseHelper.getCostumeCount(null));
+            
+            double changed = rowsPerSecond(catalog(rows, 30.0), rows);
+            assertEquals(rows, databaseHelper.getCostumeCount(null));
+            assertEquals(30.0, databaseHelper.getCostumeWindow(null, rows - 1, 1).get(0).getPrice(), 0);
+            
+            System.out.printf(Locale.ROOT, "benchmark=catalog_write rows=%d first_load_rows_per_s=%.0f unchanged_rows_per_s=%.0f changed_rows_per_s=%.0f%n",
+                    rows, firstLoad, unchanged, changed);
+        }
+    }
+    
+    @Test
+    public void lastPageDropsRowsMissingFromTheServer() {
+        int rows = CATALOG_SIZES[0];
+        rowsPerSecond(catalog(rows, 25.0), rows);
+        
+        // The server lost the last costume of the last page
+        List<List<Costume>> catalog = catalog(rows, 25.0);
+        List<Costume> lastPage = catalog.get(catalog.size() - 1);
+        lastPage.remove(lastPage.size() - 1);
+        databaseHelper.saveCostumePage(lastPage, rows - PAGE_SIZE, null);
+        
+        assertEquals(rows - 1, databaseHelper.getCostumeCount(null));
+    }
+    
+    private void openDatabase() {
+        databaseHelper = new DatabaseHelper(context, DATABASE_NAME);
+        databaseHelper.getWritableDatabase(); // Created here, not inside the first timed write
+    }
+    
+    // Store every page as CostumeListActivity does, in order
+    private double rowsPerSecond(List<List<Costume>> pages, int rows) {
+        long start = System.nanoTime();
+        int afterId = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            List<Costume> page = pages.get(i);
+            Integer lastId = i < pages.size() - 1 ? page.get(page.size() - 1).getId() : null;
+            databaseHelper.saveCostumePage(page, afterId, lastId);
+            afterId = page.get(page.size() - 1).getId();
+        }
+        long elapsed = System.nanoTime() - start;
+        return rows / (elapsed / 1e9);
+    }
+    
+    // A catalog of rows costumes as API pages, ids from 1, each costume with one booking
+    private static List<List<Costume>> catalog(int rows, double price) {
+        List<List<Costume>> pages = new ArrayList<>();
+        for (int first = 1; first <= rows; first += PAGE_SIZE) {
+            List<Costume> costumes = new ArrayList<>();
+            for (int id = first; id < first + PAGE_SIZE && id <= rows; id++) {
+                Costume costume = new Costume(id, "Costume " + id, "M", price, "costumes/" + id + ".jpg");
+                costume.setIs_available(true);
+                BookedRange range = new BookedRange();
+                range.setStart_date("2026-10-20");
+                range.setEnd_date("2026-10-22");
+                costume.setBooked_ranges(Collections.singletonList(range));
+                costumes.add(costume);
+            }
+            pages.add(costumes);
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,132 @@
+package com.costumerental.app.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.costumerental.app.models.Costume;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+// A database from the first release, upgraded step by step, must end up with the schema onCreate builds
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class DatabaseMigrationTest {
+    
+    private static final String UPGRADED = "migration_upgraded.db";
+    private static final String FRESH = "migration_fresh.db";
+    
+    private Context context;
+    private final List<DatabaseHelper> helpers = new ArrayList<>();
+    
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+    }
+    
+    @After
+    public void tearDown() {
+        for (DatabaseHelper helper : helpers) {
+            helper.close();
+        }
+        context.deleteDatabase(UPGRADED);
+        context.deleteDatabase(FRESH);
+    }
+    
+    @Test
+    public void upgradeFromVersion1MatchesFreshSchema() {
+        createVersion1(UPGRADED);
+        SQLiteDatabase upgraded = open(UPGRADED);
+        SQLiteDatabase fresh = open(FRESH);
+        
+        assertEquals(schema(fresh), schema(upgraded));
+        assertEquals(fresh.getVersion(), upgraded.getVersion());
+    }
+    
+    @Test
+    public void upgradeKeepsStoredCostumes() {
+        createVersion1(UPGRADED);
+        DatabaseHelper helper = helper(UPGRADED);
+        
+        assertEquals(1, helper.getCostumeCount(null));
+        Costume costume = helper.getCostumeWindow(null, 0, 1).get(0);
+        assertEquals("Pirate", costume.getName());
+        // Columns added later take their defaults, and the costume is in the search index
+        assertEquals(true, costume.isIs_available());
+        assertEquals(1, helper.searchCostumes("pir", 10, null).size());
+    }
+    
+    // The schema and a costume as the first release stored them (DATABASE_VERSION 1)
+    private void createVersion1(String name) {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(name), null);
+        try {
+            db.execSQL("CREATE TABLE costumes (id INTEGER PRIMARY KEY, name TEXT, size TEXT, price REAL, image TEXT)");
+            db.execSQL("INSERT INTO costumes (id, name, size, price, image) VALUES (1, 'Pirate', 'M', 25.0, 'pirate.jpg')");
+            db.setVersion(1);
+        } finally {
+            db.close();
+        }
+    }
+    
+    private DatabaseHelper helper(String name) {
+        DatabaseHelper helper = new DatabaseHelper(context, name);
+        helpers.add(helper);
+        return helper;
+    }
+    
+    private SQLiteDatabase open(String name) {
+        return helper(name).getWritableDatabase();
+    }
+    
+    // Every table, index and trigger with its columns (tables, indexes) or its SQL (triggers), in name order
+    private static List<String> schema(SQLiteDatabase db) {
+        List<String> schema = new ArrayList<>();
+        Cursor objects = db.rawQuery("SELECT type, name, tbl_name, sql FROM sqlite_master " +
+                "WHERE name NOT LIKE 'sqlite_%' ORDER BY name", null);
+        try {
+            while (objects.moveToNext()) {
+                String type = objects.getString(0);
+                String name = objects.getString(1);
+                StringBuilder entry = new StringBuilder(type + " " + name + " on " + objects.getString(2));
+                if ("table".equals(type)) {
+                    entry.append(rows(db, "PRAGMA table_info(" + name + ")"));
+                } else if ("index".equals(type)) {
+                    entry.append(rows(db, "PRAGMA index_xinfo(" + name + ")"));
+                } else if (!objects.isNull(3)) {
+                    entry.append(": ").append(objects.getString(3).replaceAll("\\s+", " "));
+                }
+                schema.add(entry.toString());
+            }
+        } finally {
+            objects.close();
+        }
+        return schema;
+    }
+    
+    private static String rows(SQLiteDatabase db, String sql) {
+        StringBuilder rows = new StringBuilder();
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            while (cursor.moveToNext()) {
+                rows.append("\n  ");
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    rows.append(cursor.getColumnName(i)).append('=').append(cursor.getString(i)).append(' ');
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return rows.toString();
+    }
+}
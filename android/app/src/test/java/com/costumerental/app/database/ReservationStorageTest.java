@@ -0,0 +1,73 @@
+package com.costumerental.app.database;
+
+import android.content.Context;
+
+import com.costumerental.app.models.Costume;
+import com.costumerental.app.models.Reservation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+// Reservations are stored with their costume's name, the catalog is left to the catalog sync
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ReservationStorageTest {
+    
+    private static final String DATABASE_NAME = "reservation_storage.db";
+    
+    private Context context;
+    private DatabaseHelper databaseHelper;
+    
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        databaseHelper = new DatabaseHelper(context, DATABASE_NAME);
+    }
+    
+    @After
+    public void tearDown() {
+        databaseHelper.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+    
+    @Test
+    public void syncedReservationDoesNotAddItsCostumeToTheCatalog() {
+        // The server sends deleted costumes with the reservations made for them
+        databaseHelper.saveReservations(Collections.singletonList(reservation(1, new Costume(9, "Witch", "S", 30.0, "witch.jpg"))));
+        
+        assertEquals(0, databaseHelper.getCostumeCount(null));
+        List<Reservation> stored = databaseHelper.getReservations(null);
+        assertEquals(1, stored.size());
+        assertEquals("Witch", stored.get(0).getCostume().getName());
+    }
+    
+    @Test
+    public void reservationSentWithoutItsCostumeKeepsTheStoredName() {
+        databaseHelper.saveReservations(Collections.singletonList(reservation(1, new Costume(9, "Witch", "S", 30.0, "witch.jpg"))));
+        databaseHelper.saveReservations(Collections.singletonList(reservation(1, null)));
+        
+        assertEquals("Witch", databaseHelper.getReservations(null).get(0).getCostume().getName());
+    }
+    
+    private static Reservation reservation(int id, Costume costume) {
+        Reservation reservation = new Reservation();
+        reservation.setId(id);
+        reservation.setCostume_id(9);
+        reservation.setUser_id(2);
+        reservation.setStart_date("2026-10-20");
+        reservation.setEnd_date("2026-10-22");
+        reservation.setStatus("approved");
+        reservation.setCostume(costume);
+        return reservation;
+    }
+}
@@ -0,0 +1,108 @@
+package com.costumerental.app.utils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// The disk executor's bound: background threads wait for room, the main thread (the test thread under
+// Robolectric) never does, and tasks run in the order they were queued either way
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class AppExecutorsTest {
+    
+    private static final int TASKS = 300; // More than the queue holds
+    
+    private final Executor diskIO = AppExecutors.getInstance().diskIO();
+    
+    @Test(timeout = 10000)
+    public void mainThreadNeverWaitsForAFullQueue() throws InterruptedException {
+        CountDownLatch disk = blockDiskThread();
+        List<Integer> order = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(TASKS);
+        
+        for (int i = 0; i < TASKS; i++) {
+            diskIO.execute(record(order, i, done));
+        }
+        
+        disk.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertInOrder(order);
+    }
+    
+    @Test(timeout = 10000)
+    public void backgroundThreadsWaitForRoom() throws InterruptedException {
+        CountDownLatch disk = blockDiskThread();
+        final List<Integer> order = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(TASKS);
+        final AtomicInteger queued = new AtomicInteger();
+        
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < TASKS; i++) {
+                    diskIO.execute(record(order, i, done));
+                    queued.incrementAndGet();
+                }
+            }
+        });
+        producer.start();
+        
+        // Stuck at the bound while the disk thread is busy
+        Thread.sleep(300);
+        assertTrue(producer.isAlive());
+        assertTrue(queued.get() < TASKS);
+        
+        disk.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        producer.join();
+        assertInOrder(order);
+    }
+    
+    // Occupy the disk thread until the returned latch is released
+    private CountDownLatch blockDiskThread() {
+        final CountDownLatch release = new CountDownLatch(1);
+        diskIO.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        return release;
+    }
+    
+    private static Runnable record(final List<Integer> order, final int index, final CountDownLatch done) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                synchronized (order) {
+                    order.add(index);
+                }
+                done.countDown();
+            }
+        };
+    }
+    
+    private static void assertInOrder(List<Integer> order) {
+        synchronized (order) {
+            assertEquals(TASKS, order.size());
+            for (int i = 0; i < TASKS; i++) {
+                assertEquals(i, (int) order.get(i));
+            }
+        }
+    }
+}
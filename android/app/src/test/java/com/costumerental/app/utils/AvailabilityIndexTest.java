@@ -0,0 +1,108 @@
+package com.costumerental.app.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AvailabilityIndexTest {
+    
+    private static final int TODAY = DateUtils.toEpochDay(2026, 10, 17);
+    
+    @Test
+    public void emptyIndexIsAlwaysFree() {
+        AvailabilityIndex index = new AvailabilityIndex(new int[0], new int[0]);
+        assertEquals(0, index.size());
+        assertTrue(index.isAvailableOn(TODAY));
+        assertTrue(index.isFree(TODAY, TODAY + 30));
+        assertEquals(TODAY, index.nextAvailableDay(TODAY));
+        assertEquals(TODAY, index.earliestFreeStart(TODAY, 7));
+    }
+    
+    @Test
+    public void overlappingBookingsAreMerged() {
+        AvailabilityIndex index = index(TODAY + 5, TODAY + 10, TODAY + 8, TODAY + 12, TODAY + 6, TODAY + 7);
+        assertEquals(1, index.size());
+        assertEquals(TODAY + 13, index.nextAvailableDay(TODAY + 5));
+    }
+    
+    @Test
+    public void adjacentBookingsAreMerged() {
+        // The second booking starts the day after the first one ends
+        AvailabilityIndex index = index(TODAY + 1, TODAY + 3, TODAY + 4, TODAY + 6);
+        assertEquals(1, index.size());
+        assertEquals(TODAY + 7, index.nextAvailableDay(TODAY + 2));
+    }
+    
+    @Test
+    public void bookingsWithAFreeDayBetweenStayApart() {
+        AvailabilityIndex index = index(TODAY + 1, TODAY + 3, TODAY + 5, TODAY + 6);
+        assertEquals(2, index.size());
+        assertTrue(index.isAvailableOn(TODAY + 4));
+        assertEquals(TODAY + 4, index.nextAvailableDay(TODAY + 1));
+    }
+    
+    @Test
+    public void isFreeAtRangeEnds() {
+        AvailabilityIndex index = index(TODAY + 5, TODAY + 10);
+        // Both ends are booked days
+        assertFalse(index.isFree(TODAY, TODAY + 5));
+        assertFalse(index.isFree(TODAY + 10, TODAY + 12));
+        // Ending the day before, or starting the day after
+        assertTrue(index.isFree(TODAY, TODAY + 4));
+        assertTrue(index.isFree(TODAY + 11, TODAY + 20));
+        // Spanning the whole booking
+        assertFalse(index.isFree(TODAY, TODAY + 20));
+        assertFalse(index.isAvailableOn(TODAY + 5));
+        assertFalse(index.isAvailableOn(TODAY + 10));
+        assertTrue(index.isAvailableOn(TODAY + 11));
+    }
+    
+    @Test
+    public void earliestFreeStartToday() {
+        AvailabilityIndex index = index(TODAY + 3, TODAY + 5);
+        // Three days fit before the booking
+        assertEquals(TODAY, index.earliestFreeStart(TODAY, 3));
+        // Four do not, they start after it
+        assertEquals(TODAY + 6, index.earliestFreeStart(TODAY, 4));
+    }
+    
+    @Test
+    public void earliestFreeStartWhenABookingStartsToday() {
+        AvailabilityIndex index = index(TODAY, TODAY + 2, TODAY + 5, TODAY + 8);
+        // The two day gap after the first booking fits two days, not three
+        assertEquals(TODAY + 3, index.earliestFreeStart(TODAY, 2));
+        assertEquals(TODAY + 9, index.earliestFreeStart(TODAY, 3));
+    }
+    
+    @Test
+    public void bookingsAcrossMonthAndYearEnds() {
+        AvailabilityIndex index = new AvailabilityIndex(
+                new int[]{DateUtils.parseEpochDay("2026-12-30"), DateUtils.parseEpochDay("2027-01-01")},
+                new int[]{DateUtils.parseEpochDay("2026-12-31"), DateUtils.parseEpochDay("2027-01-02")});
+        // December 31st and January 1st are consecutive, so the two bookings are one block
+        assertEquals(1, index.size());
+        assertEquals("2027-01-03", DateUtils.formatEpochDay(index.nextAvailableDay(DateUtils.parseEpochDay("2026-12-30"))));
+    }
+    
+    @Test
+    public void malformedBookingsAreIgnored() {
+        AvailabilityIndex index = new AvailabilityIndex(
+                new int[]{DateUtils.INVALID_DAY, TODAY + 5, TODAY + 1},
+                new int[]{TODAY + 3, DateUtils.INVALID_DAY, TODAY});
+        assertEquals(0, index.size());
+        assertTrue(index.isFree(TODAY, TODAY + 10));
+    }
+    
+    // Bookings given as start, end, start, end...
+    private static AvailabilityIndex index(int... days) {
+        int[] starts = new int[days.length / 2];
+        int[] ends = new int[days.length / 2];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = days[2 * i];
+            ends[i] = days[2 * i + 1];
+        }
+        return new AvailabilityIndex(starts, ends);
+    }
+}
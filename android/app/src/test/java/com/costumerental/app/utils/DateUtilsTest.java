@@ -0,0 +1,68 @@
+package com.costumerental.app.utils;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DateUtilsTest {
+    
+    @Test
+    public void epochStartsOn1970January1st() {
+        assertEquals(0, DateUtils.toEpochDay(1970, 1, 1));
+        assertEquals(-1, DateUtils.parseEpochDay("1969-12-31"));
+        assertEquals("1970-01-01", DateUtils.formatEpochDay(0));
+    }
+    
+    @Test
+    public void monthAndYearEndsAreConsecutiveDays() {
+        assertEquals(DateUtils.toEpochDay(2026, 1, 31) + 1, DateUtils.toEpochDay(2026, 2, 1));
+        assertEquals(DateUtils.toEpochDay(2026, 2, 28) + 1, DateUtils.toEpochDay(2026, 3, 1));
+        assertEquals(DateUtils.toEpochDay(2026, 12, 31) + 1, DateUtils.toEpochDay(2027, 1, 1));
+        assertEquals("2027-01-01", DateUtils.formatEpochDay(DateUtils.parseEpochDay("2026-12-31") + 1));
+        assertEquals("2026-03-01", DateUtils.formatEpochDay(DateUtils.parseEpochDay("2026-02-28") + 1));
+    }
+    
+    @Test
+    public void leapYears() {
+        // Divisible by 4, except centuries, except every 400 years
+        assertEquals("2028-02-29", DateUtils.formatEpochDay(DateUtils.parseEpochDay("2028-02-28") + 1));
+        assertEquals("2100-03-01", DateUtils.formatEpochDay(DateUtils.parseEpochDay("2100-02-28") + 1));
+        assertEquals("2000-02-29", DateUtils.formatEpochDay(DateUtils.parseEpochDay("2000-02-28") + 1));
+        assertEquals(366, DateUtils.toEpochDay(2029, 1, 1) - DateUtils.toEpochDay(2028, 1, 1));
+    }
+    
+    @Test
+    public void matchesJavaTimeEveryDayFrom1900To2100() {
+        LocalDate date = LocalDate.of(1900, 1, 1);
+        LocalDate end = LocalDate.of(2100, 12, 31);
+        while (!date.isAfter(end)) {
+            int epochDay = (int) date.toEpochDay();
+            assertEquals(date.toString(), epochDay, DateUtils.toEpochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(epochDay, DateUtils.parseEpochDay(date.toString()));
+            assertEquals(date.toString(), DateUtils.formatEpochDay(epochDay));
+            date = date.plusDays(1);
+        }
+    }
+    
+    @Test
+    public void timePartIsIgnored() {
+        assertEquals(DateUtils.toEpochDay(2026, 10, 17), DateUtils.parseEpochDay("2026-10-17 23:59:59"));
+        assertEquals(DateUtils.toEpochDay(2026, 10, 17), DateUtils.parseEpochDay("2026-10-17T00:00:00.000000Z"));
+    }
+    
+    @Test
+    public void malformedDatesAreInvalid() {
+        assertEquals(DateUtils.INVALID_DAY, DateUtils.parseEpochDay(null));
+        assertEquals(DateUtils.INVALID_DAY, DateUtils.parseEpochDay(""));
+        assertEquals(DateUtils.INVALID_DAY, DateUtils.parseEpochDay("2026-10-1"));
+        assertEquals(DateUtils.INVALID_DAY, DateUtils.parseEpochDay("2026/10/17"));
+        assertEquals(DateUtils.INVALID_DAY, DateUtils.parseEpochDay("2026-13-01"));
+        assertEquals(DateUtils.INVALID_DAY, DateUtils.parseEpochDay("2026-00-10"));
+        assertEquals(DateUtils.INVALID_DAY, DateUtils.parseEpochDay("2026-10-32"));
+        assertEquals(DateUtils.INVALID_DAY, DateUtils.parseEpochDay("20x6-10-17"));
+        assertNull(DateUtils.formatEpochDay(DateUtils.INVALID_DAY));
+    }
+}
@@ -0,0 +1,81 @@
+package com.costumerental.app.work;
+
+import com.costumerental.app.utils.DateUtils;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeadlineSchedulerTest {
+    
+    private static final TimeZone PARIS = TimeZone.getTimeZone("Europe/Paris");
+    
+    @Test
+    public void noDeadlineWaitsTheLongestIdleDelay() {
+        assertEquals(TimeUnit.DAYS.toMillis(3), DeadlineScheduler.computeDelayMs(at(2026, 10, 17, 10, 0), DateUtils.INVALID_DAY));
+    }
+    
+    @Test
+    public void deadlineInWindowRunsAtTheReminderHourToday() {
+        int deadline = DateUtils.toEpochDay(2026, 10, 19);
+        assertEquals(TimeUnit.HOURS.toMillis(1), DeadlineScheduler.computeDelayMs(at(2026, 10, 17, 8, 0), deadline));
+    }
+    
+    @Test
+    public void deadlineInWindowAfterTheReminderHourRunsTomorrow() {
+        int deadline = DateUtils.toEpochDay(2026, 10, 19);
+        assertEquals(TimeUnit.HOURS.toMillis(23), DeadlineScheduler.computeDelayMs(at(2026, 10, 17, 10, 0), deadline));
+        // Exactly at the reminder hour counts as past it
+        assertEquals(TimeUnit.HOURS.toMillis(24), DeadlineScheduler.computeDelayMs(at(2026, 10, 17, 9, 0), deadline));
+    }
+    
+    @Test
+    public void deadlineTodayStillRunsTomorrowMorning() {
+        int deadline = DateUtils.toEpochDay(2026, 10, 17);
+        assertEquals(TimeUnit.HOURS.toMillis(23), DeadlineScheduler.computeDelayMs(at(2026, 10, 17, 10, 0), deadline));
+    }
+    
+    @Test
+    public void laterDeadlineRunsTheDayItEntersTheWindow() {
+        // Enters the 3 day window on the 19th
+        int deadline = DateUtils.toEpochDay(2026, 10, 22);
+        assertEquals(TimeUnit.HOURS.toMillis(47), DeadlineScheduler.computeDelayMs(at(2026, 10, 17, 10, 0), deadline));
+    }
+    
+    @Test
+    public void farDeadlineIsCappedAtTheIdleDelay() {
+        int deadline = DateUtils.toEpochDay(2026, 11, 30);
+        assertEquals(TimeUnit.DAYS.toMillis(3), DeadlineScheduler.computeDelayMs(at(2026, 10, 17, 10, 0), deadline));
+    }
+    
+    @Test
+    public void windowAcrossMonthAndYearEnds() {
+        assertEquals(TimeUnit.HOURS.toMillis(23),
+                DeadlineScheduler.computeDelayMs(at(2026, 1, 31, 10, 0), DateUtils.toEpochDay(2026, 2, 2)));
+        // Enters the window on January 1st
+        assertEquals(TimeUnit.HOURS.toMillis(47),
+                DeadlineScheduler.computeDelayMs(at(2026, 12, 30, 10, 0), DateUtils.toEpochDay(2027, 1, 4)));
+        // Leap day
+        assertEquals(TimeUnit.HOURS.toMillis(23),
+                DeadlineScheduler.computeDelayMs(at(2028, 2, 28, 10, 0), DateUtils.toEpochDay(2028, 3, 1)));
+    }
+    
+    @Test
+    public void reminderHourIsWallClockAcrossDaylightSaving() {
+        // Clocks go forward on March 29th 2026 in Paris, 9:00 the next day is only 22 hours away
+        int deadline = DateUtils.toEpochDay(2026, 3, 30);
+        assertEquals(TimeUnit.HOURS.toMillis(22), DeadlineScheduler.computeDelayMs(at(2026, 3, 28, 10, 0), deadline));
+    }
+    
+    // Local time in Paris, month from 1
+    private static Calendar at(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance(PARIS);
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute);
+        return calendar;
+    }
+}
@@ -10,42 +10,123 @@ use Carbon\Carbon;
 
 class CostumeController extends Controller
 {
-    // Get all costumes
-    public function index()
+    // Largest page a client can ask for
+    private const MAX_PAGE_SIZE = 100;
+    
+    // Get all costumes (or one page when a limit is given, keyset-paginated by id)
+    public function index(Request $request)
     {
-        $costumes = Costume::all();
+        // Cursor is taken before reading so nothing changed during the read is missed
+        $cursor = Carbon::now()->toDateTimeString();
+        $query = Costume::orderBy('id');
+        $nextCursor = null;
+        
+        if ($request->filled('limit')) {
+            $limit = min(max((int) $request->limit, 1), self::MAX_PAGE_SIZE);
+            
+            // Fetch one extra row to know whether another page follows
+            $costumes = $query->where('id', '>', (int) $request->input('after_id', 0))
+                ->limit($limit + 1)
+                ->get();
+            
+            if ($costumes->count() > $limit) {
+                $costumes = $costumes->slice(0, $limit)->values();
+                $nextCursor = $costumes->last()->id;
+            }
+        } else {
+            $costumes = $query->get();
+        }
         
         // Add availability information for each costume
-        $costumesWithAvailability = $costumes->map(function ($costume) {
-            $availability = $this->getCostumeAvailability($costume->id);
-            return [
-                'id' => $costume->id,
-                'name' => $costume->name,
-                'size' => $costume->size,
-                'price' => $costume->price,
-                'image' => $costume->image,
-                'is_available' => $availability['is_available'],
-                'next_available_date' => $availability['next_available_date'],
-            ];
-        });
+        $costumesWithAvailability = $this->costumePayloads($costumes);
         
         return response()->json([
             'success' => true,
             'data' => $costumesWithAvailability,
+            'next_cursor' => $nextCursor,
+        ])->header('X-Sync-Cursor', $cursor);
+    }
+    
+    // Get costumes changed or deleted since a sync cursor (delta sync). The server's date is sent along:
+    // availability is relative to it, so a client whose cursor is from an earlier day reloads everything.
+    public function changes(Request $request)
+    {
+        $request->validate([
+            'updated_since' => 'required|date',
         ]);
+        
+        $since = Carbon::parse($request->updated_since);
+        $cursor = Carbon::now()->toDateTimeString();
+        
+        // A costume also changes when one of its reservations changes (availability)
+        $changed = $this->costumePayloads(Costume::where('updated_at', '>=', $since)
+            ->orWhereHas('reservations', function ($query) use ($since) {
+                $query->where('updated_at', '>=', $since);
+            })
+            ->get());
+        
+        $deletedIds = Costume::onlyTrashed()
+            ->where('deleted_at', '>=', $since)
+            ->pluck('id');
+        
+        return response()->json([
+            'success' => true,
+            'data' => [
+                'costumes' => $changed,
+                'deleted_ids' => $deletedIds,
+                'cursor' => $cursor,
+            ],
+        ])->header('X-Server-Date', Carbon::today()->toDateString());
     }
     
-    // Get costume availability
-    private function getCostumeAvailability($costumeId)
+    // Costume fields for a list of costumes, the approved bookings of all of them are read at once
+    private function costumePayloads($costumes)
     {
-        $today = Carbon::today();
+        $today = Carbon::today()->toDateString();
+        $bookings = collect();
+        
+        // Chunked to stay under the database's limit on bound parameters
+        foreach ($costumes->pluck('id')->chunk(500) as $ids) {
+            $bookings = $bookings->concat(Reservation::whereIn('costume_id', $ids)
+                ->where('status', 'approved')
+                ->where('end_date', '>=', $today)
+                ->orderBy('start_date', 'asc')
+                ->get());
+        }
+        $bookings = $bookings->groupBy('costume_id');
         
-        // Find all approved reservations that are active or future
-        $activeReservations = Reservation::where('costume_id', $costumeId)
-            ->where('status', 'approved')
-            ->where('end_date', '>=', $today->toDateString())
-            ->orderBy('start_date', 'asc')
-            ->get();
+        return $costumes->map(function ($costume) use ($bookings) {
+            return $this->costumePayload($costume, $bookings->get($costume->id, collect()));
+        })->values();
+    }
+    
+    // Costume fields sent to the app, with availability information computed from its approved
+    // active or future reservations (sorted by start date)
+    private function costumePayload($costume, $activeReservations)
+    {
+        $availability = $this->getCostumeAvailability($activeReservations);
+        return [
+            'id' => $costume->id,
+            'name' => $costume->name,
+            'size' => $costume->size,
+            'price' => $costume->price,
+            'image' => $costume->image,
+            'is_available' => $availability['is_available'],
+            'next_available_date' => $availability['next_available_date'],
+            // Booked periods, so the app can answer availability for any date offline
+            'booked_ranges' => $activeReservations->map(function ($reservation) {
+                return [
+                    'start_date' => Carbon::parse($reservation->start_date)->toDateString(),
+                    'end_date' => Carbon::parse($reservation->end_date)->toDateString(),
+                ];
+            })->values(),
+        ];
+    }
+    
+    // Get costume availability from its approved active or future reservations
+    private function getCostumeAvailability($activeReservations)
+    {
+        $today = Carbon::today();
         
         if ($activeReservations->isEmpty()) {
             // No active reservations, costume is available
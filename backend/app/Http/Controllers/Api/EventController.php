@@ -0,0 +1,88 @@
+<?php
+
+namespace App\Http\Controllers\Api;
+
+use App\Http\Controllers\Controller;
+use Illuminate\Http\Request;
+use App\Models\ReservationEvent;
+
+class EventController extends Controller
+{
+    // How long one connection stays open, the client reconnects with Last-Event-ID afterwards
+    private const STREAM_SECONDS = 25;
+    private const POLL_INTERVAL_SECONDS = 2;
+    private const HEARTBEAT_SECONDS = 10;
+    private const RECONNECT_MS = 3000;
+    private const MAX_EVENTS_PER_POLL = 100;
+
+    // Server-Sent Events stream of reservation events:
+    // admins receive reservation.created, clients receive reservation.status_changed for their own reservations
+    public function stream(Request $request)
+    {
+        $user = $request->user();
+        $isAdmin = $user->role === 'admin';
+
+        // Resume after the last event the client saw, or start from now on a first connection
+        $lastEventId = $request->header('Last-Event-ID', $request->query('last_event_id'));
+        $lastEventId = is_numeric($lastEventId) ? (int) $lastEventId : (int) ReservationEvent::max('id');
+
+        return response()->stream(function () use ($user, $isAdmin, $lastEventId) {
+            $startedAt = time();
+            $lastWriteAt = time();
+
+            echo 'retry: ' . self::RECONNECT_MS . "\n\n";
+            $this->flush();
+
+            while (time() - $startedAt < self::STREAM_SECONDS && !connection_aborted()) {
+                $query = ReservationEvent::with(['reservation.costume', 'reservation.user'])
+                    ->where('id', '>', $lastEventId)
+                    ->orderBy('id')
+                    ->limit(self::MAX_EVENTS_PER_POLL);
+
+                if ($isAdmin) {
+                    $query->where('type', ReservationEvent::CREATED);
+                } else {
+                    $query->where('type', ReservationEvent::STATUS_CHANGED)
+                        ->where('user_id', $user->id);
+                }
+
+                $events = $query->get();
+
+                foreach ($events as $event) {
+                    $lastEventId = $event->id;
+                    if (!$event->reservation) {
+                        continue;
+                    }
+                    echo 'id: ' . $event->id . "\n";
+                    echo 'event: ' . $event->type . "\n";
+                    echo 'data: ' . json_encode($event->reservation) . "\n\n";
+                    $lastWriteAt = time();
+                }
+
+                // Comment line keeps proxies and the client's read timeout from closing an idle stream
+                if (time() - $lastWriteAt >= self::HEARTBEAT_SECONDS) {
+                    echo ": ping\n\n";
+                    $lastWriteAt = time();
+                }
+
+                $this->flush();
+
+                if ($events->count() < self::MAX_EVENTS_PER_POLL) {
+                    sleep(self::POLL_INTERVAL_SECONDS);
+                }
+            }
+        }, 200, [
+            'Content-Type' => 'text/event-stream',
+            'Cache-Control' => 'no-store', // Never stored by the app's HTTP cache or a proxy
+            'X-Accel-Buffering' => 'no', // Disable nginx buffering
+        ]);
+    }
+
+    private function flush()
+    {
+        if (ob_get_level() > 0) {
+            ob_flush();
+        }
+        flush();
+    }
+}
@@ -5,10 +5,15 @@ namespace App\Http\Controllers\Api;
 use App\Http\Controllers\Controller;
 use Illuminate\Http\Request;
 use App\Models\Reservation;
+use App\Models\ReservationEvent;
 use App\Models\Costume;
+use Carbon\Carbon;
 
 class ReservationController extends Controller
 {
+    // Most reservations a single batch request may update
+    private const MAX_BATCH_SIZE = 500;
+    
     // Create reservation (client only)
     public function store(Request $request)
     {
@@ -118,6 +123,8 @@ class ReservationController extends Controller
             'status' => 'pending',
         ]);
 
+        ReservationEvent::record($reservation, ReservationEvent::CREATED);
+
         $reservation->load('costume');
 
         return response()->json([
@@ -130,14 +137,27 @@ class ReservationController extends Controller
     // Get reservations by user
     public function myReservations(Request $request)
     {
-        $reservations = Reservation::where('user_id', $request->user()->id)
-            ->with('costume')
-            ->get();
+        $request->validate([
+            'updated_since' => 'nullable|date',
+        ]);
+        
+        // Cursor is taken before reading so nothing changed during the read is missed
+        $cursor = Carbon::now()->toDateTimeString();
+        
+        $query = Reservation::where('user_id', $request->user()->id)
+            ->with('costume');
+        
+        // Incremental sync: only reservations changed since the client's cursor
+        if ($request->filled('updated_since')) {
+            $query->where('updated_at', '>=', Carbon::parse($request->updated_since));
+        }
+        
+        $reservations = $query->get();
 
         return response()->json([
             'success' => true,
             'data' => $reservations,
-        ]);
+        ])->header('X-Sync-Cursor', $cursor);
     }
 
     // Get all reservations (admin only)
@@ -163,19 +183,23 @@ class ReservationController extends Controller
             ], 404);
         }
 
+        if ($reservation->status !== 'pending') {
+            return response()->json([
+                'success' => false,
+                'message' => 'Reservation is already ' . $reservation->status,
+            ], 409);
+        }
+
+        // A deleted costume keeps its reservations, but cannot be rented anymore
+        if ($reservation->costume->trashed()) {
+            return response()->json([
+                'success' => false,
+                'message' => 'Cannot approve: Costume was deleted',
+            ], 409);
+        }
+
         // Check if there are any conflicts with approved reservations
-        $conflictingReservation = Reservation::where('costume_id', $reservation->costume_id)
-            ->where('id', '!=', $id)
-            ->where('status', 'approved')
-            ->where(function ($query) use ($reservation) {
-                $query->whereBetween('start_date', [$reservation->start_date, $reservation->end_date])
-                    ->orWhereBetween('end_date', [$reservation->start_date, $reservation->end_date])
-                    ->orWhere(function ($q) use ($reservation) {
-                        $q->where('start_date', '<=', $reservation->start_date)
-                          ->where('end_date', '>=', $reservation->end_date);
-                    });
-            })
-            ->first();
+        $conflictingReservation = $this->findApprovedConflict($reservation);
 
         if ($conflictingReservation) {
             return response()->json([
@@ -186,6 +210,7 @@ class ReservationController extends Controller
 
         $reservation->status = 'approved';
         $reservation->save();
+        ReservationEvent::record($reservation, ReservationEvent::STATUS_CHANGED);
         $reservation->load(['costume', 'user']);
 
         return response()->json([
@@ -207,8 +232,16 @@ class ReservationController extends Controller
             ], 404);
         }
 
+        if ($reservation->status !== 'pending') {
+            return response()->json([
+                'success' => false,
+                'message' => 'Reservation is already ' . $reservation->status,
+            ], 409);
+        }
+
         $reservation->status = 'rejected';
         $reservation->save();
+        ReservationEvent::record($reservation, ReservationEvent::STATUS_CHANGED);
         $reservation->load(['costume', 'user']);
 
         return response()->json([
@@ -218,6 +251,87 @@ class ReservationController extends Controller
         ]);
     }
 
+    // Approve or reject several reservations in one request (admin only)
+    public function batch(Request $request)
+    {
+        $validated = $request->validate([
+            'ids' => 'required|array|min:1|max:' . self::MAX_BATCH_SIZE,
+            'ids.*' => 'integer',
+            'action' => 'required|in:approve,reject',
+        ]);
+        
+        $updated = [];
+        $failed = [];
+        
+        // One by one and in order, so an approval in this batch is seen by the conflict check of the next ones
+        foreach (array_unique($validated['ids']) as $id) {
+            $reservation = Reservation::find($id);
+            
+            if (!$reservation) {
+                $failed[] = ['id' => $id, 'message' => 'Reservation not found'];
+                continue;
+            }
+            
+            // Approved or rejected since the admin selected it, e.g. from another device
+            if ($reservation->status !== 'pending') {
+                $failed[] = ['id' => $id, 'message' => 'Reservation is already ' . $reservation->status];
+                continue;
+            }
+            
+            if ($validated['action'] === 'approve') {
+                if ($reservation->costume->trashed()) {
+                    $failed[] = ['id' => $id, 'message' => 'Cannot approve: Costume was deleted'];
+                    continue;
+                }
+                $conflictingReservation = $this->findApprovedConflict($reservation);
+                if ($conflictingReservation) {
+                    $failed[] = [
+                        'id' => $id,
+                        'message' => 'Cannot approve: Costume is already reserved from ' . $conflictingReservation->start_date . ' to ' . $conflictingReservation->end_date,
+                    ];
+                    continue;
+                }
+                $reservation->status = 'approved';
+            } else {
+                $reservation->status = 'rejected';
+            }
+            
+            $reservation->save();
+            ReservationEvent::record($reservation, ReservationEvent::STATUS_CHANGED);
+            $updated[] = $reservation;
+        }
+        
+        $updatedReservations = Reservation::with(['costume', 'user'])
+            ->whereIn('id', collect($updated)->pluck('id'))
+            ->get();
+        
+        return response()->json([
+            'success' => true,
+            'message' => count($updated) . ' reservation(s) updated, ' . count($failed) . ' failed',
+            'data' => [
+                'updated' => $updatedReservations,
+                'failed' => $failed,
+            ],
+        ]);
+    }
+    
+    // Find an approved reservation of the same costume overlapping the given one
+    private function findApprovedConflict($reservation)
+    {
+        return Reservation::where('costume_id', $reservation->costume_id)
+            ->where('id', '!=', $reservation->id)
+            ->where('status', 'approved')
+            ->where(function ($query) use ($reservation) {
+                $query->whereBetween('start_date', [$reservation->start_date, $reservation->end_date])
+                    ->orWhereBetween('end_date', [$reservation->start_date, $reservation->end_date])
+                    ->orWhere(function ($q) use ($reservation) {
+                        $q->where('start_date', '<=', $reservation->start_date)
+                          ->where('end_date', '>=', $reservation->end_date);
+                    });
+            })
+            ->first();
+    }
+    
     // Check if costume is available for given dates
     public function checkAvailability(Request $request)
     {
@@ -0,0 +1,121 @@
+<?php
+
+namespace App\Http\Middleware;
+
+use Closure;
+use Illuminate\Http\Request;
+use Illuminate\Support\Facades\DB;
+use Symfony\Component\HttpFoundation\Response;
+
+class IdempotencyMiddleware
+{
+    // How long a stored response can be replayed
+    private const TTL_HOURS = 72;
+
+    // Seconds a client is asked to wait before retrying a key whose first request is still running
+    private const RETRY_AFTER_SECONDS = 2;
+
+    public function handle(Request $request, Closure $next): Response
+    {
+        $key = $request->header('Idempotency-Key');
+
+        if (!$key || !$request->user()) {
+            return $next($request);
+        }
+
+        if (strlen($key) > 64) {
+            return response()->json([
+                'success' => false,
+                'message' => 'Idempotency-Key must be at most 64 characters',
+            ], 422);
+        }
+
+        $userId = $request->user()->id;
+
+        // An expired key can be used again
+        DB::table('idempotency_keys')
+            ->where('user_id', $userId)
+            ->where('key', $key)
+            ->where('created_at', '<', now()->subHours(self::TTL_HOURS))
+            ->delete();
+
+        // Claim the key before running the request: the unique (user_id, key) index lets only one of two
+        // concurrent requests insert it, the other one sees the claim below instead of running a second time
+        $claimed = DB::table('idempotency_keys')->insertOrIgnore([
+            'user_id' => $userId,
+            'key' => $key,
+            'method' => $request->method(),
+            'path' => $request->path(),
+            'status_code' => null,
+            'response_body' => null,
+            'created_at' => now(),
+            'updated_at' => now(),
+        ]);
+
+        if (!$claimed) {
+            return $this->answerClaimed($request, $userId, $key);
+        }
+
+        try {
+            $response = $next($request);
+        } catch (\Throwable $e) {
+            $this->release($userId, $key);
+            throw $e;
+        }
+
+        if ($response->getStatusCode() < 500) {
+            DB::table('idempotency_keys')
+                ->where('user_id', $userId)
+                ->where('key', $key)
+                ->update([
+                    'status_code' => $response->getStatusCode(),
+                    'response_body' => $response->getContent(),
+                    'updated_at' => now(),
+                ]);
+        } else {
+            // Server errors are not stored so the client can retry them
+            $this->release($userId, $key);
+        }
+
+        return $response;
+    }
+
+    // Answer a request whose key another request already claimed
+    private function answerClaimed(Request $request, $userId, string $key): Response
+    {
+        $stored = DB::table('idempotency_keys')
+            ->where('user_id', $userId)
+            ->where('key', $key)
+            ->first();
+
+        // Same key on a different request is a client bug, don't hand back an unrelated answer
+        if ($stored && ($stored->method !== $request->method() || $stored->path !== $request->path())) {
+            return response()->json([
+                'success' => false,
+                'message' => 'Idempotency-Key was already used for another request',
+            ], 422);
+        }
+
+        // Still running (or released between the insert and this read): the client retries later
+        if (!$stored || $stored->status_code === null) {
+            return response()->json([
+                'success' => false,
+                'message' => 'A request with this Idempotency-Key is still being processed',
+            ], 409)->header('Retry-After', (string) self::RETRY_AFTER_SECONDS);
+        }
+
+        return response($stored->response_body, $stored->status_code)
+            ->header('Content-Type', 'application/json')
+            ->header('Idempotent-Replayed', 'true');
+    }
+
+    // Drop a claim whose request failed, so the same key can be sent again
+    private function release($userId, string $key): void
+    {
+        DB::table('idempotency_keys')
+            ->where('user_id', $userId)
+            ->where('key', $key)
+            ->whereNull('status_code')
+            ->delete();
+    }
+}
@@ -17,10 +17,10 @@ class Reservation extends Model
         'status',
     ];
 
-    // Get the costume
+    // Get the costume, also once it was deleted (soft deleted) so its reservations still show it
     public function costume()
     {
-        return $this->belongsTo(Costume::class);
+        return $this->belongsTo(Costume::class)->withTrashed();
     }
 
     // Get the user
@@ -0,0 +1,47 @@
+<?php
+
+namespace App\Models;
+
+use Illuminate\Database\Eloquent\Model;
+use Illuminate\Database\Eloquent\Prunable;
+
+class ReservationEvent extends Model
+{
+    use Prunable;
+
+    // How long events are kept for a reconnecting stream (Last-Event-ID). The app only resumes a stream
+    // it had open while a dashboard was on screen; after a longer gap it reloads its lists anyway.
+    public const RETENTION_HOURS = 24;
+
+    // Event types sent to the app
+    public const CREATED = 'reservation.created';
+    public const STATUS_CHANGED = 'reservation.status_changed';
+
+    protected $fillable = [
+        'reservation_id',
+        'user_id',
+        'type',
+    ];
+
+    // Get the reservation
+    public function reservation()
+    {
+        return $this->belongsTo(Reservation::class);
+    }
+
+    // Events no reconnect asks for anymore, deleted by the scheduled model:prune (routes/console.php)
+    public function prunable()
+    {
+        return static::where('created_at', '<', now()->subHours(self::RETENTION_HOURS));
+    }
+
+    // Append an event for a reservation
+    public static function record(Reservation $reservation, string $type)
+    {
+        return static::create([
+            'reservation_id' => $reservation->id,
+            'user_id' => $reservation->user_id,
+            'type' => $type,
+        ]);
+    }
+}
@@ -16,6 +16,7 @@ return Application::configure(basePath: dirname(__DIR__))
     ->withMiddleware(function (Middleware $middleware) {
         $middleware->alias([
             'admin' => \App\Http\Middleware\AdminMiddleware::class,
+            'idempotent' => \App\Http\Middleware\IdempotencyMiddleware::class,
         ]);
         
         // Don't redirect API routes to login - let exception handler return JSON
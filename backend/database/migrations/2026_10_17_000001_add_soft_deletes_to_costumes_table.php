@@ -0,0 +1,31 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+use Illuminate\Support\Facades\Schema;
+
+return new class extends Migration
+{
+    /**
+     * Run the migrations.
+     */
+    public function up(): void
+    {
+        // Deleted costumes are kept as tombstones so clients can sync deletions
+        Schema::table('costumes', function (Blueprint $table) {
+            $table->softDeletes();
+            $table->index('updated_at');
+        });
+    }
+
+    /**
+     * Reverse the migrations.
+     */
+    public function down(): void
+    {
+        Schema::table('costumes', function (Blueprint $table) {
+            $table->dropIndex(['updated_at']);
+            $table->dropSoftDeletes();
+        });
+    }
+};
@@ -0,0 +1,36 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+use Illuminate\Support\Facades\Schema;
+
+return new class extends Migration
+{
+    /**
+     * Run the migrations.
+     */
+    public function up(): void
+    {
+        // Responses of writes sent with an Idempotency-Key, so a replayed request is answered without running twice
+        Schema::create('idempotency_keys', function (Blueprint $table) {
+            $table->id();
+            $table->foreignId('user_id')->constrained()->onDelete('cascade');
+            $table->string('key', 64);
+            $table->string('method', 10);
+            $table->string('path');
+            $table->unsignedSmallInteger('status_code');
+            $table->longText('response_body');
+            $table->timestamps();
+
+            $table->unique(['user_id', 'key']);
+        });
+    }
+
+    /**
+     * Reverse the migrations.
+     */
+    public function down(): void
+    {
+        Schema::dropIfExists('idempotency_keys');
+    }
+};
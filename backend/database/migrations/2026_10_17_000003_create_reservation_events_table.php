@@ -0,0 +1,33 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+use Illuminate\Support\Facades\Schema;
+
+return new class extends Migration
+{
+    /**
+     * Run the migrations.
+     */
+    public function up(): void
+    {
+        // Append-only log read by the event stream, the id doubles as the SSE event id
+        Schema::create('reservation_events', function (Blueprint $table) {
+            $table->id();
+            $table->foreignId('reservation_id')->constrained()->onDelete('cascade');
+            $table->foreignId('user_id')->constrained()->onDelete('cascade'); // Owner of the reservation
+            $table->string('type', 40);
+            $table->timestamps();
+
+            $table->index(['user_id', 'id']);
+        });
+    }
+
+    /**
+     * Reverse the migrations.
+     */
+    public function down(): void
+    {
+        Schema::dropIfExists('reservation_events');
+    }
+};
@@ -0,0 +1,34 @@
+<?php
+
+use Illuminate\Database\Migrations\Migration;
+use Illuminate\Database\Schema\Blueprint;
+use Illuminate\Support\Facades\DB;
+use Illuminate\Support\Facades\Schema;
+
+return new class extends Migration
+{
+    /**
+     * Run the migrations.
+     */
+    public function up(): void
+    {
+        // A key is claimed before its request runs, its response is filled in once the request is done
+        Schema::table('idempotency_keys', function (Blueprint $table) {
+            $table->unsignedSmallInteger('status_code')->nullable()->change();
+            $table->longText('response_body')->nullable()->change();
+        });
+    }
+
+    /**
+     * Reverse the migrations.
+     */
+    public function down(): void
+    {
+        DB::table('idempotency_keys')->whereNull('status_code')->delete();
+
+        Schema::table('idempotency_keys', function (Blueprint $table) {
+            $table->unsignedSmallInteger('status_code')->nullable(false)->change();
+            $table->longText('response_body')->nullable(false)->change();
+        });
+    }
+};
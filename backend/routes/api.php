@@ -4,6 +4,7 @@ use Illuminate\Http\Request;
 use Illuminate\Support\Facades\Route;
 use App\Http\Controllers\Api\AuthController;
 use App\Http\Controllers\Api\CostumeController;
+use App\Http\Controllers\Api\EventController;
 use App\Http\Controllers\Api\ReservationController;
 
 // Public routes
@@ -13,14 +14,21 @@ Route::post('/register', [AuthController::class, 'register']);
 // Protected routes (require authentication)
 Route::middleware('auth:sanctum')->group(function () {
     // Costumes
-    Route::get('/costumes', [CostumeController::class, 'index']);
-    Route::post('/costumes', [CostumeController::class, 'store'])->middleware('admin');
-    Route::delete('/costumes/{id}', [CostumeController::class, 'destroy'])->middleware('admin');
+    // Catalog is revalidated with ETag / If-None-Match so unchanged lists come back as 304
+    Route::get('/costumes', [CostumeController::class, 'index'])->middleware('cache.headers:private;no_cache;etag');
+    Route::get('/costumes/changes', [CostumeController::class, 'changes']);
+    // Writes accept an Idempotency-Key header so the app's offline outbox can safely replay them
+    Route::post('/costumes', [CostumeController::class, 'store'])->middleware(['admin', 'idempotent']);
+    Route::delete('/costumes/{id}', [CostumeController::class, 'destroy'])->middleware(['admin', 'idempotent']);
     
     // Reservations
-    Route::post('/reservations', [ReservationController::class, 'store']);
+    Route::post('/reservations', [ReservationController::class, 'store'])->middleware('idempotent');
     Route::get('/reservations/my', [ReservationController::class, 'myReservations']);
     Route::get('/reservations', [ReservationController::class, 'index'])->middleware('admin');
+    Route::post('/reservations/batch', [ReservationController::class, 'batch'])->middleware('admin');
     Route::post('/reservations/{id}/approve', [ReservationController::class, 'approve'])->middleware('admin');
     Route::post('/reservations/{id}/reject', [ReservationController::class, 'reject'])->middleware('admin');
+    
+    // Push channel (Server-Sent Events) for new reservations and status changes
+    Route::get('/events', [EventController::class, 'stream']);
 });
@@ -1,8 +1,13 @@
 <?php
 
+use App\Models\ReservationEvent;
 use Illuminate\Foundation\Inspiring;
 use Illuminate\Support\Facades\Artisan;
+use Illuminate\Support\Facades\Schedule;
 
 Artisan::command('inspire', function () {
     $this->comment(Inspiring::quote());
 })->purpose('Display an inspiring quote')->hourly();
+
+// Keep the event log down to what a reconnecting stream can still ask for
+Schedule::command('model:prune', ['--model' => [ReservationEvent::class]])->hourly();